@@ -6,6 +6,9 @@
      - 1 Usuário tem 1 Contato (Email/Tel)
      - 1 Usuário tem N Endereços
      - Clientes e Técnicos são extensões de Usuários
+   MIGRAÇÕES: índices e mudanças posteriores ficam em src/main/resources/db/migracoes
+     e são aplicados pelo programa ao iniciar (tabela tbl_migracoes). Depois de
+     rodar este script, basta abrir o programa para o banco ficar em dia.
 ================================================================================ */
 
 -- 0. LIMPEZA TOTAL (CUIDADO: APAGA TUDO)
@@ -92,9 +95,15 @@ CREATE TABLE tbl_ordens_servico (
     data_saida DATE,
     valor_mao_obra DECIMAL(10, 2) DEFAULT 0.00 CHECK (valor_mao_obra >= 0),
     valor_pecas DECIMAL(10, 2) DEFAULT 0.00 CHECK (valor_pecas >= 0),
-    valor_total DECIMAL(10, 2) DEFAULT 0.00 CHECK (valor_total >= 0)
+    valor_total DECIMAL(10, 2) DEFAULT 0.00 CHECK (valor_total >= 0),
+    -- Palavras da descrição já normalizadas (dicionário português) para busca textual
+    busca_descricao TSVECTOR GENERATED ALWAYS AS
+        (to_tsvector('portuguese', coalesce(descricao_problema, ''))) STORED
 );
 
+-- Busca textual na descrição (OrdemServicoDAO.buscarPorTexto) sem varrer a tabela
+CREATE INDEX idx_os_busca_descricao ON tbl_ordens_servico USING GIN (busca_descricao);
+
 CREATE TABLE tbl_log_auditoria (
     id SERIAL PRIMARY KEY,
     evento VARCHAR(100) NOT NULL,
@@ -137,6 +146,40 @@ CREATE TRIGGER trg_log_delete_cliente
 AFTER DELETE ON tbl_clientes
 FOR EACH ROW EXECUTE FUNCTION fn_log_delete_cliente();
 
+-- TRIGGER 3: Avisa as telas abertas (LISTEN techdesk_mudancas) sobre mudanças
+-- Payload compacto: tabela|operacao|id|id_empresa
+CREATE OR REPLACE FUNCTION fn_notifica_mudanca()
+RETURNS TRIGGER AS $$
+DECLARE
+    v_id INT;
+    v_id_empresa INT;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        v_id := OLD.id;
+        v_id_empresa := OLD.id_empresa;
+    ELSE
+        v_id := NEW.id;
+        v_id_empresa := NEW.id_empresa;
+    END IF;
+
+    PERFORM pg_notify('techdesk_mudancas',
+        TG_TABLE_NAME || '|' || TG_OP || '|' || v_id || '|' || v_id_empresa);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_notifica_ordens_servico
+AFTER INSERT OR UPDATE OR DELETE ON tbl_ordens_servico
+FOR EACH ROW EXECUTE FUNCTION fn_notifica_mudanca();
+
+CREATE TRIGGER trg_notifica_clientes
+AFTER INSERT OR UPDATE OR DELETE ON tbl_clientes
+FOR EACH ROW EXECUTE FUNCTION fn_notifica_mudanca();
+
+CREATE TRIGGER trg_notifica_tecnicos
+AFTER INSERT OR UPDATE OR DELETE ON tbl_tecnicos
+FOR EACH ROW EXECUTE FUNCTION fn_notifica_mudanca();
+
 /*
 ================================================================================
  PARTE 3: PROCEDURES (ADAPTADAS PARA A NOVA ESTRUTURA)
@@ -0,0 +1,131 @@
+package com.mycompany.projetotechdesk;
+
+import com.mycompany.projetotechdesk.dao.ImportacaoDAO;
+import com.mycompany.projetotechdesk.dao.ResultadoImportacao;
+import com.mycompany.projetotechdesk.database.Conexao;
+import com.mycompany.projetotechdesk.database.Migracoes;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Cadastro inicial de uma empresa sem abrir telas: importa um CSV de clientes
+ * ou de tecnicos pelo ImportacaoDAO (formato das colunas descrito la).
+ *
+ * Uso: ProjetoTechDesk --importar [opcoes], ou esta classe como main.
+ *   --tipo=clientes|tecnicos   o que o arquivo contem
+ *   --empresa=N                empresa que recebe os cadastros
+ *   --arquivo=CAMINHO          CSV em UTF-8, com cabecalho
+ *   --rejeitados=CAMINHO       onde gravar as linhas rejeitadas (padrao: ARQUIVO-rejeitados.csv)
+ *
+ * Sai com codigo 1 se a importacao falhar, 2 se as opcoes estiverem erradas.
+ * Linhas rejeitadas nao contam como falha: vao para o arquivo de rejeitados.
+ *
+ * @author carlo
+ */
+public class ImportacaoEmLote {
+
+    private record Opcoes(String tipo, int idEmpresa, File arquivo, File rejeitados) {}
+
+    public static void main(String[] args) {
+        Opcoes opcoes;
+        try {
+            opcoes = lerOpcoes(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println("ERRO: " + e.getMessage());
+            System.out.println("Uso: ImportacaoEmLote --tipo=clientes|tecnicos --empresa=N --arquivo=CSV [--rejeitados=CSV]");
+            System.exit(2);
+            return;
+        }
+
+        int codigo;
+        try {
+            importar(opcoes);
+            codigo = 0;
+        } catch (Exception e) {
+            e.printStackTrace();
+            codigo = 1;
+        } finally {
+            Conexao.encerrar();
+        }
+        System.exit(codigo);
+    }
+
+    private static Opcoes lerOpcoes(String[] args) {
+        String tipo = null;
+        Integer idEmpresa = null;
+        File arquivo = null;
+        File rejeitados = null;
+
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            String nome = igual < 0 ? arg : arg.substring(0, igual);
+            String valor = igual < 0 ? "" : arg.substring(igual + 1).trim();
+
+            switch (nome) {
+                case "--tipo" -> {
+                    if (!valor.equals("clientes") && !valor.equals("tecnicos")) {
+                        throw new IllegalArgumentException("--tipo precisa ser clientes ou tecnicos (recebido: \"" + valor + "\")");
+                    }
+                    tipo = valor;
+                }
+                case "--empresa" -> idEmpresa = inteiroPositivo(nome, valor);
+                case "--arquivo" -> arquivo = new File(valor);
+                case "--rejeitados" -> rejeitados = new File(valor);
+                default -> throw new IllegalArgumentException("opção desconhecida: " + arg);
+            }
+        }
+
+        if (tipo == null) throw new IllegalArgumentException("falta --tipo");
+        if (idEmpresa == null) throw new IllegalArgumentException("falta --empresa");
+        if (arquivo == null) throw new IllegalArgumentException("falta --arquivo");
+        if (!arquivo.isFile()) throw new IllegalArgumentException("arquivo não encontrado: " + arquivo.getPath());
+
+        if (rejeitados == null) {
+            String nomeArquivo = arquivo.getName().replaceFirst("\\.csv$", "");
+            rejeitados = new File(arquivo.getAbsoluteFile().getParentFile(), nomeArquivo + "-rejeitados.csv");
+        }
+        return new Opcoes(tipo, idEmpresa, arquivo, rejeitados);
+    }
+
+    private static int inteiroPositivo(String opcao, String valor) {
+        try {
+            int numero = Integer.parseInt(valor);
+            if (numero > 0) return numero;
+        } catch (NumberFormatException e) {
+            //cai na mensagem abaixo
+        }
+        throw new IllegalArgumentException(opcao + " precisa de um inteiro positivo (recebido: \"" + valor + "\")");
+    }
+
+    private static void importar(Opcoes opcoes) throws Exception {
+        Migracoes.aplicarPendentes();
+
+        ImportacaoDAO dao = new ImportacaoDAO();
+        long inicio = System.nanoTime();
+
+        ResultadoImportacao resultado;
+        try (Reader csv = Files.newBufferedReader(opcoes.arquivo().toPath(), StandardCharsets.UTF_8)) {
+            resultado = opcoes.tipo().equals("clientes")
+                    ? dao.importarClientes(opcoes.idEmpresa(), csv)
+                    : dao.importarTecnicos(opcoes.idEmpresa(), csv);
+        }
+
+        System.out.println(resultado.importados() + " de " + resultado.totalLinhas() + " " + opcoes.tipo()
+                + " importados em " + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+
+        if (!resultado.rejeitados().isEmpty()) {
+            gravarRejeitados(resultado, opcoes.rejeitados());
+            System.out.println(resultado.rejeitados().size() + " linhas rejeitadas -> " + opcoes.rejeitados().getPath());
+        }
+    }
+
+    private static void gravarRejeitados(ResultadoImportacao resultado, File destino) throws IOException {
+        try (Writer saida = Files.newBufferedWriter(destino.toPath(), StandardCharsets.UTF_8)) {
+            resultado.gravarRejeitados(saida);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.mycompany.projetotechdesk.Model;
+
+/**
+ * Numeros do painel de relatorios de uma empresa (contagem por status e valores).
+ * Imutavel: pode ser guardado em cache e compartilhado entre telas.
+ *
+ * @author carlo
+ */
+public record DashboardStats(
+        long totalAbertas,
+        long totalEmAndamento,
+        long totalConcluidas,
+        long totalCanceladas,
+        double valorFaturado,
+        double valorPendente) {
+
+    public static DashboardStats vazio() {
+        return new DashboardStats(0, 0, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,12 @@
+package com.mycompany.projetotechdesk.Model;
+
+import java.time.YearMonth;
+
+/**
+ * Faturamento de um mes: O.S. concluidas (pelo mes da data de saida) e a soma
+ * dos valores. Vem pronto da tbl_faturamento_mensal, mantida por trigger.
+ *
+ * @author carlo
+ */
+public record FaturamentoMensal(YearMonth mes, int totalOS, double valorTotal) {
+}
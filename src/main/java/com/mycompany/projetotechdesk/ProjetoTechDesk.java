@@ -5,7 +5,15 @@
 package com.mycompany.projetotechdesk;
 
 
+import com.mycompany.projetotechdesk.dao.AuditoriaDAO;
+import com.mycompany.projetotechdesk.dao.OrdemServicoDAO;
+import com.mycompany.projetotechdesk.database.Migracoes;
+import com.mycompany.projetotechdesk.util.RegistroRelatorios;
 import com.mycompany.projetotechdesk.view.Login;
+import java.awt.GraphicsEnvironment;
+import java.sql.SQLException;
+import java.util.Arrays;
+import javax.swing.JOptionPane;
 
 
 
@@ -16,6 +24,37 @@ import com.mycompany.projetotechdesk.view.Login;
 public class ProjetoTechDesk {
 
     public static void main(String[] args) {
+       //"--lote ...": gera os relatorios de todas as empresas sem abrir telas (ver RelatoriosEmLote)
+       if (args.length > 0 && args[0].equals("--lote")) {
+           RelatoriosEmLote.main(Arrays.copyOfRange(args, 1, args.length));
+           return;
+       }
+       //"--importar ...": carga de clientes/tecnicos de um CSV (ver ImportacaoEmLote)
+       if (args.length > 0 && args[0].equals("--importar")) {
+           ImportacaoEmLote.main(Arrays.copyOfRange(args, 1, args.length));
+           return;
+       }
+       
+       //modelos de relatorio carregam em segundo plano enquanto o resto sobe
+       RegistroRelatorios.preCarregar(RegistroRelatorios.RELATORIO_OS);
+       
+       //deixa o esquema em dia (indices etc.) antes de abrir as telas.
+       //Se falhar, nao abre: as telas num esquema pela metade falhariam de formas piores
+       try {
+           Migracoes.aplicarPendentes();
+           //particao do ano que vem ja existe antes da virada
+           OrdemServicoDAO.criarParticoesFuturas(1);
+           AuditoriaDAO.manutencao();
+       } catch (SQLException e) {
+           e.printStackTrace();
+           if (!GraphicsEnvironment.isHeadless()) {
+               JOptionPane.showMessageDialog(null,
+                       "Não foi possível preparar o banco de dados:\n" + e.getMessage(),
+                       "TechDesk", JOptionPane.ERROR_MESSAGE);
+           }
+           System.exit(1);
+       }
+       
        new Login().setVisible(true);
        
     }
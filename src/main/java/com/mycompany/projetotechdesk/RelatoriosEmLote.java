@@ -0,0 +1,314 @@
+package com.mycompany.projetotechdesk;
+
+import com.mycompany.projetotechdesk.Model.DashboardStats;
+import com.mycompany.projetotechdesk.Model.Empresa;
+import com.mycompany.projetotechdesk.Model.FaturamentoMensal;
+import com.mycompany.projetotechdesk.dao.EmpresaDAO;
+import com.mycompany.projetotechdesk.dao.OrdemServicoDAO;
+import com.mycompany.projetotechdesk.database.Conexao;
+import com.mycompany.projetotechdesk.database.ConfiguracaoBanco;
+import com.mycompany.projetotechdesk.database.Migracoes;
+import com.mycompany.projetotechdesk.util.FonteDadosOS;
+import com.mycompany.projetotechdesk.util.RegistroRelatorios;
+import com.mycompany.projetotechdesk.util.RelatorioUtil;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.Normalizer;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+
+/**
+ * Fechamento do mes sem abrir telas: gera os PDFs de O.S. e de faturamento de
+ * todas as empresas (ou so das escolhidas) numa pasta.
+ *
+ * Cada empresa x relatorio e uma tarefa num ForkJoinPool com o paralelismo
+ * pedido. O relatorio de O.S. le o cursor do streamOS (FonteDadosOS) e o de
+ * faturamento a tbl_faturamento_mensal; nenhum roda a consulta do modelo.
+ * No fim mostra o tempo de cada empresa e a vazao (relatorios/s).
+ *
+ * Uso: ProjetoTechDesk --lote [opcoes], ou esta classe como main.
+ *   --saida=PASTA      onde gravar os PDFs (padrao: relatorios-AAAA-MM)
+ *   --paralelismo=N    relatorios ao mesmo tempo (padrao: nucleos, ate o pool.tamanhoMaximo)
+ *   --empresas=1,2,3   so essas empresas (padrao: todas da tbl_empresas)
+ *   --meses=N          meses no relatorio de faturamento (padrao: 12)
+ *
+ * Sai com codigo 1 se algum relatorio falhar, 2 se as opcoes estiverem erradas.
+ *
+ * @author carlo
+ */
+public class RelatoriosEmLote {
+
+    private enum Tipo {
+        OS("os"), FATURAMENTO("faturamento");
+
+        final String sufixo;
+
+        Tipo(String sufixo) {
+            this.sufixo = sufixo;
+        }
+    }
+
+    private record Opcoes(File saida, int paralelismo, List<Integer> empresas, int meses) {}
+
+    //erro == null: gerou "arquivo"
+    private record Resultado(Empresa empresa, Tipo tipo, File arquivo, long ms, Throwable erro) {}
+
+    private static final Locale PT_BR = Locale.of("pt", "BR");
+
+    private final Opcoes opcoes;
+    private final OrdemServicoDAO osDAO = new OrdemServicoDAO();
+
+    private RelatoriosEmLote(Opcoes opcoes) {
+        this.opcoes = opcoes;
+    }
+
+    public static void main(String[] args) {
+        //o Jasper mede fontes pelo AWT; sem isso falha num servidor sem tela
+        System.setProperty("java.awt.headless", "true");
+
+        Opcoes opcoes;
+        try {
+            opcoes = lerOpcoes(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println("ERRO: " + e.getMessage());
+            System.out.println("Uso: RelatoriosEmLote [--saida=PASTA] [--paralelismo=N] [--empresas=1,2,3] [--meses=N]");
+            System.exit(2);
+            return;
+        }
+
+        int falhas;
+        try {
+            falhas = new RelatoriosEmLote(opcoes).executar();
+        } catch (Exception e) {
+            e.printStackTrace();
+            falhas = 1;
+        } finally {
+            Conexao.encerrar();
+        }
+        System.exit(falhas == 0 ? 0 : 1);
+    }
+
+    private static Opcoes lerOpcoes(String[] args) {
+        File saida = new File("relatorios-" + YearMonth.now());
+        int maxConexoes = ConfiguracaoBanco.carregar().getTamanhoMaximo();
+        int paralelismo = Math.min(Runtime.getRuntime().availableProcessors(), maxConexoes);
+        List<Integer> empresas = new ArrayList<>();
+        int meses = 12;
+
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            String nome = igual < 0 ? arg : arg.substring(0, igual);
+            String valor = igual < 0 ? "" : arg.substring(igual + 1).trim();
+
+            switch (nome) {
+                case "--saida" -> saida = new File(valor);
+                case "--paralelismo" -> paralelismo = inteiroPositivo(nome, valor);
+                case "--meses" -> meses = inteiroPositivo(nome, valor);
+                case "--empresas" -> {
+                    for (String id : valor.split(",")) {
+                        if (!id.isBlank()) empresas.add(inteiroPositivo(nome, id.trim()));
+                    }
+                }
+                default -> throw new IllegalArgumentException("opção desconhecida: " + arg);
+            }
+        }
+
+        //cada relatorio de O.S. segura uma conexao enquanto preenche: acima disso as tarefas so esperam o pool
+        if (paralelismo > maxConexoes) {
+            System.out.println("Aviso: paralelismo " + paralelismo + " maior que pool.tamanhoMaximo (" + maxConexoes
+                    + "); as tarefas excedentes vão esperar conexão.");
+        }
+        return new Opcoes(saida, paralelismo, empresas, meses);
+    }
+
+    private static int inteiroPositivo(String opcao, String valor) {
+        try {
+            int numero = Integer.parseInt(valor);
+            if (numero > 0) return numero;
+        } catch (NumberFormatException e) {
+            //cai na mensagem abaixo
+        }
+        throw new IllegalArgumentException(opcao + " precisa de um inteiro positivo (recebido: \"" + valor + "\")");
+    }
+
+    //devolve quantos relatorios falharam
+    private int executar() throws Exception {
+        Migracoes.aplicarPendentes();
+
+        EmpresaDAO empresaDAO = new EmpresaDAO();
+        List<Empresa> empresas = opcoes.empresas().isEmpty()
+                ? empresaDAO.listarTodas()
+                : empresaDAO.listarPorIds(opcoes.empresas());
+        if (empresas.isEmpty()) {
+            System.out.println("Nenhuma empresa encontrada.");
+            return opcoes.empresas().isEmpty() ? 0 : 1;
+        }
+
+        File saida = opcoes.saida();
+        if (!saida.isDirectory() && !saida.mkdirs()) {
+            throw new IllegalStateException("Não foi possível criar a pasta " + saida.getAbsolutePath());
+        }
+
+        //carrega (e compila) os modelos antes, para nao contar no tempo da primeira empresa
+        long inicioModelos = System.nanoTime();
+        RegistroRelatorios.obter(RegistroRelatorios.RELATORIO_OS);
+        RegistroRelatorios.obter(RegistroRelatorios.RELATORIO_FATURAMENTO);
+        System.out.println("Modelos prontos em " + (System.nanoTime() - inicioModelos) / 1_000_000 + " ms");
+
+        List<Callable<Resultado>> tarefas = new ArrayList<>();
+        for (Empresa empresa : empresas) {
+            for (Tipo tipo : Tipo.values()) {
+                tarefas.add(() -> gerar(empresa, tipo));
+            }
+        }
+
+        System.out.println("Gerando " + tarefas.size() + " relatórios de " + empresas.size() + " empresa(s) em "
+                + saida.getAbsolutePath() + " (paralelismo " + opcoes.paralelismo() + ")");
+
+        long inicio = System.nanoTime();
+        List<Resultado> resultados = new ArrayList<>(tarefas.size());
+        ForkJoinPool pool = new ForkJoinPool(opcoes.paralelismo());
+        try {
+            for (Future<Resultado> futuro : pool.invokeAll(tarefas)) {
+                resultados.add(futuro.get());
+            }
+        } catch (ExecutionException e) {
+            //gerar() ja trata os erros; so chega aqui se algo fugir dele
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        long totalMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        return imprimirResumo(resultados, totalMs);
+    }
+
+    //uma tarefa do pool: nunca lanca, o erro volta no Resultado
+    private Resultado gerar(Empresa empresa, Tipo tipo) {
+        long inicio = System.nanoTime();
+        File arquivo = new File(opcoes.saida(), nomeArquivo(empresa, tipo));
+
+        try (OutputStream saida = new BufferedOutputStream(new FileOutputStream(arquivo))) {
+            switch (tipo) {
+                case OS -> gerarOS(empresa, saida);
+                case FATURAMENTO -> gerarFaturamento(empresa, saida);
+            }
+        } catch (Exception e) {
+            arquivo.delete();
+            return new Resultado(empresa, tipo, null, (System.nanoTime() - inicio) / 1_000_000, e);
+        }
+        return new Resultado(empresa, tipo, arquivo, (System.nanoTime() - inicio) / 1_000_000, null);
+    }
+
+    private void gerarOS(Empresa empresa, OutputStream saida) throws Exception {
+        Map<String, Object> parametros = parametrosBase(empresa);
+        try (FonteDadosOS dados = FonteDadosOS.doStream(osDAO.streamOS(empresa.getId()))) {
+            RelatorioUtil.gerarPDF(RegistroRelatorios.obter(RegistroRelatorios.RELATORIO_OS), parametros, dados, saida);
+        }
+    }
+
+    private void gerarFaturamento(Empresa empresa, OutputStream saida) throws Exception {
+        List<FaturamentoMensal> meses = osDAO.listarFaturamentoMensal(empresa.getId(), opcoes.meses());
+        DashboardStats painel = osDAO.carregarDadosRelatorio(empresa.getId());
+
+        Map<String, Object> parametros = parametrosBase(empresa);
+        parametros.put("meses", opcoes.meses());
+        parametros.put("valor_faturado", dinheiro(painel.valorFaturado()));
+        parametros.put("valor_pendente", dinheiro(painel.valorPendente()));
+
+        List<Map<String, ?>> linhas = new ArrayList<>(meses.size());
+        for (FaturamentoMensal mes : meses) {
+            Map<String, Object> linha = new HashMap<>();
+            linha.put("mes", java.sql.Date.valueOf(mes.mes().atDay(1)));
+            linha.put("total_os", mes.totalOS());
+            linha.put("valor_total", dinheiro(mes.valorTotal()));
+            linhas.add(linha);
+        }
+
+        RelatorioUtil.gerarPDF(RegistroRelatorios.obter(RegistroRelatorios.RELATORIO_FATURAMENTO),
+                parametros, new JRMapCollectionDataSource(linhas), saida);
+    }
+
+    private static Map<String, Object> parametrosBase(Empresa empresa) {
+        Map<String, Object> parametros = new HashMap<>();
+        parametros.put("id_empresa", empresa.getId());
+        parametros.put("nome_empresa", empresa.getNomeEmpresa());
+        parametros.put(JRParameter.REPORT_LOCALE, PT_BR);
+        return parametros;
+    }
+
+    private static BigDecimal dinheiro(double valor) {
+        return BigDecimal.valueOf(valor).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    //"007_oficina_do_joao_os.pdf": id na frente para ordenar, nome sem acento para qualquer sistema de arquivos
+    private static String nomeArquivo(Empresa empresa, Tipo tipo) {
+        String nome = empresa.getNomeEmpresa() == null ? "" : empresa.getNomeEmpresa();
+        nome = Normalizer.normalize(nome, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replaceAll("[^A-Za-z0-9]+", "_")
+                .replaceAll("^_+|_+$", "")
+                .toLowerCase(Locale.ROOT);
+        if (nome.length() > 40) nome = nome.substring(0, 40);
+        return String.format("%03d_%s%s.pdf", empresa.getId(), nome.isEmpty() ? "" : nome + "_", tipo.sufixo);
+    }
+
+    //tempo por empresa, vazao e falhas; devolve quantas falharam
+    private static int imprimirResumo(List<Resultado> resultados, long totalMs) {
+        Map<Integer, List<Resultado>> porEmpresa = new LinkedHashMap<>();
+        for (Resultado r : resultados) {
+            porEmpresa.computeIfAbsent(r.empresa().getId(), id -> new ArrayList<>()).add(r);
+        }
+
+        System.out.println();
+        System.out.println(String.format("%-6s %-30s %12s %12s %12s", "ID", "Empresa", "O.S. (ms)", "Fatur. (ms)", "Total (ms)"));
+
+        int falhas = 0;
+        long bytes = 0;
+        for (List<Resultado> daEmpresa : porEmpresa.values()) {
+            Empresa empresa = daEmpresa.get(0).empresa();
+            long[] ms = new long[Tipo.values().length];
+            long soma = 0;
+            for (Resultado r : daEmpresa) {
+                ms[r.tipo().ordinal()] = r.ms();
+                soma += r.ms();
+            }
+
+            String nome = empresa.getNomeEmpresa() == null ? "" : empresa.getNomeEmpresa();
+            if (nome.length() > 30) nome = nome.substring(0, 29) + "…";
+            System.out.println(String.format("%-6d %-30s %12d %12d %12d",
+                    empresa.getId(), nome, ms[Tipo.OS.ordinal()], ms[Tipo.FATURAMENTO.ordinal()], soma));
+
+            for (Resultado r : daEmpresa) {
+                if (r.erro() != null) {
+                    falhas++;
+                    System.out.println("       ERRO no relatório " + r.tipo().sufixo + " -> " + r.erro().getMessage());
+                } else {
+                    bytes += r.arquivo().length();
+                }
+            }
+        }
+
+        int gerados = resultados.size() - falhas;
+        double segundos = Math.max(totalMs, 1) / 1000.0;
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "%d relatório(s) em %.1f s (%.2f relatórios/s, %.1f MB), %d falha(s)",
+                gerados, segundos, gerados / segundos, bytes / (1024.0 * 1024.0), falhas));
+        return falhas;
+    }
+}
@@ -0,0 +1,54 @@
+package com.mycompany.projetotechdesk.dao;
+
+import com.mycompany.projetotechdesk.database.Conexao;
+import com.mycompany.projetotechdesk.database.ConfiguracaoBanco;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Manutencao da tbl_auditoria.
+ *
+ * Os eventos sao gravados pelos triggers do banco (migracao V005), nao pelos
+ * DAOs: aqui so ficam as particoes mensais (criar as proximas, apagar as que
+ * passaram da retencao configurada em auditoria.retencaoMeses).
+ *
+ * @author carlo
+ */
+public class AuditoriaDAO {
+
+    //meses a frente com particao pronta
+    private static final int MESES_A_FRENTE = 2;
+
+    //chamado ao iniciar o programa
+    public static void manutencao() throws SQLException {
+        int criadas = executarFuncao("SELECT fn_criar_particoes_auditoria(?)", MESES_A_FRENTE);
+        if (criadas > 0) {
+            System.out.println("Auditoria: " + criadas + " particao(oes) criada(s)");
+        }
+
+        int retencao = ConfiguracaoBanco.carregar().getRetencaoAuditoriaMeses();
+        if (retencao > 0) {
+            int removidas = executarFuncao("SELECT fn_expurgar_auditoria(?)", retencao);
+            if (removidas > 0) {
+                System.out.println("Auditoria: " + removidas + " mes(es) expurgado(s)");
+            }
+        }
+    }
+
+    private static int executarFuncao(String sql, int parametro) throws SQLException {
+        Connection conexao = Conexao.getConexao();
+        if (conexao == null) throw new SQLException("Sem conexão com o banco.");
+
+        try (conexao; PreparedStatement stmt = conexao.prepareStatement(sql)) {
+            stmt.setInt(1, parametro);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.out.println("ERRO, na manutencao da auditoria -> " + e.getMessage());
+            throw e;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.mycompany.projetotechdesk.dao;
 import com.mycompany.projetotechdesk.Model.Cliente;
 import com.mycompany.projetotechdesk.Model.Contato;
 import com.mycompany.projetotechdesk.database.Conexao;
+import com.mycompany.projetotechdesk.util.CacheTTL;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -12,10 +13,12 @@ import java.util.List;
 
 public class ClienteDAO {
     
-    private Connection con;
+    //lista de clientes por id_empresa: lida varias vezes ao abrir o Principal e apos cada gravacao.
+    //Invalidada por adicionar/atualizar/excluir (e pela importacao em massa).
+    private static final CacheTTL<Integer, List<Cliente>> CACHE_LISTA = new CacheTTL<>(5 * 60_000, 50);
     
     public void adicionar(Cliente cliente, int idEmpresa) throws SQLException{
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         if(con == null) return;
         
         // Procedure atualizada para receber apenas 5 parametros (sem endereço)
@@ -36,6 +39,7 @@ public class ClienteDAO {
             System.out.println("ERRO add cliente: " + e.getMessage());
             throw e;
         } finally {
+            invalidarCache(idEmpresa);
             if(stmt != null) stmt.close();
             if(con != null) con.close();
         }
@@ -43,7 +47,7 @@ public class ClienteDAO {
     
     public void atualizar(Cliente cliente) throws SQLException{
    
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         if (con == null) return;
 
         // O erro acontecia porque antes estava enviando 6 coisas (?,?,?,?,?,?)
@@ -70,6 +74,7 @@ public class ClienteDAO {
             }
 
             stmt.execute();
+            OrdemServicoDAO.invalidarCacheOS();
             
         } catch (SQLException e) {
             if (e.getMessage().contains("unq_cpf")) {
@@ -78,12 +83,17 @@ public class ClienteDAO {
                 throw e; 
             }
         } finally {
+            if (cliente.getEmpresa() != null) {
+                invalidarCache(cliente.getEmpresa().getId());
+            } else {
+                CACHE_LISTA.limpar();
+            }
             con.close();
         }
     }
     
     public void excluir(int idCliente, int idEmpresa) throws SQLException{
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         if(con == null) return;
         
         try{
@@ -96,13 +106,37 @@ public class ClienteDAO {
             System.out.println("ERRO del cliente: " + e.getMessage());
             throw e;
         }finally{
+            invalidarCache(idEmpresa);
             if(con!= null) con.close();
         }
     }
     
+    //clientes da empresa (do cache quando possivel). A lista devolvida nao pode ser alterada.
     public List<Cliente> listarTodos(int idEmpresa) throws SQLException{
-        con = Conexao.getConexao();
-        if (con == null) return new ArrayList<>();
+        try {
+            return CACHE_LISTA.getOuCarregar(idEmpresa, this::consultarTodos);
+        } catch (SQLException e){
+            //erro nao vai para o cache: a proxima chamada tenta de novo
+            System.out.println("ERRO list cliente: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    public static CacheTTL.Estatisticas getEstatisticasCache() {
+        return CACHE_LISTA.getEstatisticas();
+    }
+    
+    static void invalidarCache(int idEmpresa) {
+        CACHE_LISTA.invalidar(idEmpresa);
+    }
+    
+    static void limparCache() {
+        CACHE_LISTA.limpar();
+    }
+    
+    private List<Cliente> consultarTodos(int idEmpresa) throws SQLException{
+        Connection con = Conexao.getConexao();
+        if (con == null) throw new SQLException("Sem conexão com o banco.");
         
         
         String sql = """
@@ -141,18 +175,16 @@ public class ClienteDAO {
                 
                 clientes.add(cliente);
             }
-        } catch (SQLException e){
-            System.out.println("ERRO list cliente: " + e.getMessage());
         } finally {
             if (rs != null) rs.close();
             if (stmt != null) stmt.close();
-            if (con != null) con.close();
+            con.close();
         }
-        return clientes;
+        return List.copyOf(clientes);
     }
     
     public Cliente buscarPorId(int idCliente) throws SQLException {
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         if (con == null) return null;
 
         String sql = """
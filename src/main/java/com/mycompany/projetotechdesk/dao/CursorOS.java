@@ -0,0 +1,19 @@
+package com.mycompany.projetotechdesk.dao;
+
+import com.mycompany.projetotechdesk.Model.OrdemServico;
+import java.util.Date;
+
+/**
+ * Posicao na listagem de O.S. para paginacao por chave (keyset).
+ * A proxima pagina comeca logo depois de (dataEntrada, idOS),
+ * na ordem data_entrada DESC, id_os DESC.
+ *
+ * @author carlo
+ */
+public record CursorOS(Date dataEntrada, int idOS) {
+
+    //cursor apontando para a ultima O.S. de uma pagina ja carregada
+    public static CursorOS depoisDe(OrdemServico os) {
+        return new CursorOS(os.getDataEntrada(), os.getId());
+    }
+}
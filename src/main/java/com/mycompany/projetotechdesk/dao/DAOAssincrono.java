@@ -0,0 +1,101 @@
+package com.mycompany.projetotechdesk.dao;
+
+import com.mycompany.projetotechdesk.database.ConfiguracaoBanco;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.SwingUtilities;
+
+/**
+ * Roda chamadas de DAO fora da EDT, em virtual threads, e entrega o
+ * resultado de volta na EDT.
+ *
+ * Uso:
+ *   DAOAssincrono.executar(() -> clienteDAO.listarTodos(idEmpresa))
+ *       .thenAccept(lista -> ...preenche a tabela...)
+ *       .exceptionally(e -> { ...mostra DAOAssincrono.causa(e)...; return null; });
+ *
+ * Chamadas sem retorno (gravar, excluir) usam executarSemRetorno; o nome
+ * diferente, como no Transacao, evita a ambiguidade de lambda entre as duas.
+ *
+ * O future e completado na EDT, entao thenAccept/whenComplete/exceptionally
+ * (sem "Async") ja rodam na EDT e podem mexer em Swing.
+ * No maximo pool.tamanhoMaximo chamadas rodam ao mesmo tempo; as demais
+ * esperam a vez sem ocupar conexao.
+ *
+ * cancel(): se a chamada ainda esperava a vez, ela nem roda; se ja estava
+ * no banco, termina la e o resultado e descartado (interromper a thread
+ * fecharia o socket e derrubaria a conexao do pool).
+ *
+ * @author carlo
+ */
+public final class DAOAssincrono {
+
+    @FunctionalInterface
+    public interface Chamada<T> {
+        T executar() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface ChamadaSemRetorno {
+        void executar() throws Exception;
+    }
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    //mais chamadas simultaneas que conexoes so faria threads esperarem dentro do pool
+    private static final Semaphore VAGAS = new Semaphore(ConfiguracaoBanco.carregar().getTamanhoMaximo(), true);
+
+    private DAOAssincrono() {
+    }
+
+    public static <T> CompletableFuture<T> executar(Chamada<T> chamada) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        AtomicBoolean iniciada = new AtomicBoolean(false);
+
+        Future<?> tarefa = EXECUTOR.submit(() -> {
+            try {
+                VAGAS.acquire();
+            } catch (InterruptedException e) {
+                return; //cancelada enquanto esperava a vez
+            }
+            try {
+                if (resultado.isDone() || !iniciada.compareAndSet(false, true)) return;
+
+                T valor = chamada.executar();
+                SwingUtilities.invokeLater(() -> resultado.complete(valor));
+            } catch (Throwable e) {
+                SwingUtilities.invokeLater(() -> resultado.completeExceptionally(e));
+            } finally {
+                VAGAS.release();
+            }
+        });
+
+        resultado.whenComplete((valor, erro) -> {
+            //so interrompe quem ainda nao chegou no banco
+            if (resultado.isCancelled() && iniciada.compareAndSet(false, true)) {
+                tarefa.cancel(true);
+            }
+        });
+        return resultado;
+    }
+
+    public static CompletableFuture<Void> executarSemRetorno(ChamadaSemRetorno chamada) {
+        return executar(() -> {
+            chamada.executar();
+            return null;
+        });
+    }
+
+    //a excecao original, sem o CompletionException que os estagios seguintes colocam em volta
+    public static Throwable causa(Throwable erro) {
+        while (erro instanceof CompletionException && erro.getCause() != null) {
+            erro = erro.getCause();
+        }
+        return erro;
+    }
+}
@@ -0,0 +1,56 @@
+package com.mycompany.projetotechdesk.dao;
+
+import com.mycompany.projetotechdesk.Model.Empresa;
+import com.mycompany.projetotechdesk.database.Conexao;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitura da tbl_empresas. O cadastro de empresa (com o admin) continua no
+ * UsuarioDAO.registrarNovaEmpresaEUsuario.
+ *
+ * @author carlo
+ */
+public class EmpresaDAO {
+
+    //todas as empresas, por id
+    public List<Empresa> listarTodas() throws SQLException {
+        return listar("SELECT id, nome_empresa, cnpj FROM tbl_empresas ORDER BY id", null);
+    }
+
+    //so as empresas com esses ids (ids que nao existem sao ignorados), por id
+    public List<Empresa> listarPorIds(List<Integer> ids) throws SQLException {
+        return listar("SELECT id, nome_empresa, cnpj FROM tbl_empresas WHERE id = ANY(?) ORDER BY id", ids);
+    }
+
+    private List<Empresa> listar(String sql, List<Integer> ids) throws SQLException {
+        Connection conexao = Conexao.getConexao();
+        if (conexao == null) throw new SQLException("Sem conexão com o banco.");
+
+        List<Empresa> lista = new ArrayList<>();
+
+        try (conexao; PreparedStatement stmt = conexao.prepareStatement(sql)) {
+            if (ids != null) {
+                stmt.setArray(1, conexao.createArrayOf("int4", ids.toArray()));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Empresa empresa = new Empresa();
+                    empresa.setId(rs.getInt("id"));
+                    empresa.setNomeEmpresa(rs.getString("nome_empresa"));
+                    empresa.setCnpj(rs.getString("cnpj"));
+                    lista.add(empresa);
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("ERRO, ao listar empresas -> " + e.getMessage());
+            throw e;
+        }
+
+        return lista;
+    }
+}
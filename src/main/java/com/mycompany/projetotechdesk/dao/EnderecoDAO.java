@@ -10,11 +10,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class EnderecoDAO {
-    private Connection con;
+
+    //TelaEndereco (idx_enderecos_usuario)
+    static final String SQL_LISTAR_POR_USUARIO = "SELECT * FROM tbl_enderecos WHERE id_usuario = ?";
 
     // Adicionar Endereço
     public void adicionar(Endereco end, int idUsuario) throws SQLException {
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         if (con == null) return;
 
         String sql = """
@@ -41,7 +43,7 @@ public class EnderecoDAO {
 
     // Atualizar Endereço
     public void atualizar(Endereco end) throws SQLException {
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         if(con == null) return;
         
         String sql = "UPDATE tbl_enderecos SET descricao=?, logradouro=?, numero=?, bairro=?, cidade=?, estado=?, cep=? WHERE id=?";
@@ -65,7 +67,7 @@ public class EnderecoDAO {
 
     // Excluir Endereço
     public void excluir(int id) throws SQLException {
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         if(con == null) return;
         try {
             PreparedStatement stmt = con.prepareStatement("DELETE FROM tbl_enderecos WHERE id=?");
@@ -79,15 +81,13 @@ public class EnderecoDAO {
 
     // Listar Endereços de uma Pessoa
     public List<Endereco> listarPorUsuario(int idUsuario) throws SQLException {
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         if (con == null) return new ArrayList<>();
 
         List<Endereco> lista = new ArrayList<>();
 
-        String sql = "SELECT * FROM tbl_enderecos WHERE id_usuario = ?";
-
         try (
-            PreparedStatement stmt = con.prepareStatement(sql)
+            PreparedStatement stmt = con.prepareStatement(SQL_LISTAR_POR_USUARIO)
         ) {
             stmt.setInt(1, idUsuario);
             ResultSet rs = stmt.executeQuery();
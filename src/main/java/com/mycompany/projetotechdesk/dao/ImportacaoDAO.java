@@ -0,0 +1,240 @@
+package com.mycompany.projetotechdesk.dao;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+/**
+ * Importacao em massa de clientes e tecnicos a partir de CSV.
+ *
+ * Em vez de um CALL sp_adicionar_* por pessoa (3 INSERTs cada), o CSV e
+ * copiado de uma vez para uma tabela temporaria com COPY e depois espalhado
+ * em tbl_contatos -> tbl_usuarios -> tbl_clientes/tbl_tecnicos com SQL por
+ * conjunto. Linhas com CPF/email repetido (no arquivo ou ja no banco) ou com
+ * valor maior que a coluna de destino ficam de fora e voltam no relatorio de
+ * rejeitados, em vez de derrubar a importacao inteira no INSERT.
+ *
+ * Formato (com cabecalho, separador virgula):
+ *   clientes: nome,cpf,email,telefone
+ *   tecnicos: nome,email,telefone,especialidade,senha
+ *
+ * Pela linha de comando: ProjetoTechDesk --importar (ver ImportacaoEmLote).
+ *
+ * @author carlo
+ */
+public class ImportacaoDAO {
+
+    //mesma senha padrao da sp_adicionar_cliente
+    private static final String SENHA_PADRAO_CLIENTE = "cliente123";
+
+    public ResultadoImportacao importarClientes(int idEmpresa, Reader csv) throws SQLException {
+        try {
+            return Transacao.executar(con -> {
+                executar(con, """
+                    CREATE TEMP TABLE tmp_import_clientes (
+                        linha BIGSERIAL,
+                        nome TEXT, cpf TEXT, email TEXT, telefone TEXT,
+                        motivo TEXT
+                    ) ON COMMIT DROP
+                """);
+
+                long total = copiar(con,
+                        "COPY tmp_import_clientes (nome, cpf, email, telefone) FROM STDIN WITH (FORMAT csv, HEADER true)",
+                        csv);
+
+                executar(con, """
+                    UPDATE tmp_import_clientes
+                    SET nome = btrim(nome), cpf = btrim(cpf), email = btrim(email), telefone = btrim(telefone)
+                """);
+                //tabela temporaria nao passa pelo autovacuum: sem ANALYZE o planner chuta 1 linha
+                executar(con, "ANALYZE tmp_import_clientes");
+
+                //a primeira regra que pegar a linha define o motivo
+                marcar(con, "tmp_import_clientes", "Nome, CPF e email são obrigatórios",
+                        "coalesce(nome, '') = '' OR coalesce(cpf, '') = '' OR coalesce(email, '') = ''");
+                //tamanhos das colunas de tbl_clientes/tbl_contatos (cpf e VARCHAR(20): cabe CNPJ formatado)
+                marcar(con, "tmp_import_clientes", "Nome muito longo (máx. 100)", "length(nome) > 100");
+                marcar(con, "tmp_import_clientes", "CPF/CNPJ muito longo (máx. 20)", "length(cpf) > 20");
+                marcar(con, "tmp_import_clientes", "Email muito longo (máx. 100)", "length(email) > 100");
+                marcar(con, "tmp_import_clientes", "Telefone muito longo (máx. 30)", "length(telefone) > 30");
+                marcarRepetidos(con, "tmp_import_clientes", "cpf", "CPF repetido no arquivo");
+                marcarRepetidos(con, "tmp_import_clientes", "email", "Email repetido no arquivo");
+                marcar(con, "tmp_import_clientes", "CPF já cadastrado",
+                        "EXISTS (SELECT 1 FROM tbl_clientes c WHERE c.cpf = t.cpf)");
+                marcar(con, "tmp_import_clientes", "Email já cadastrado",
+                        "EXISTS (SELECT 1 FROM tbl_contatos c WHERE c.email = t.email)");
+
+                //contato -> usuario -> cliente, ligados pelo email (unico depois das regras acima)
+                String sqlEspalhar = """
+                    WITH validos AS (
+                        SELECT linha, nome, cpf, email, telefone FROM tmp_import_clientes WHERE motivo IS NULL
+                    ),
+                    novos_contatos AS (
+                        INSERT INTO tbl_contatos (email, telefone)
+                        SELECT email, telefone FROM validos ORDER BY linha
+                        RETURNING id, email
+                    ),
+                    novos_usuarios AS (
+                        INSERT INTO tbl_usuarios (id_empresa, id_contato, nome_usuario, senha, role)
+                        SELECT ?, nc.id, v.nome, ?, 'cliente'
+                        FROM novos_contatos nc JOIN validos v ON v.email = nc.email
+                        RETURNING id, id_contato
+                    )
+                    INSERT INTO tbl_clientes (id_empresa, id_usuario, nome, cpf)
+                    SELECT ?, nu.id, v.nome, v.cpf
+                    FROM novos_usuarios nu
+                    JOIN novos_contatos nc ON nc.id = nu.id_contato
+                    JOIN validos v ON v.email = nc.email
+                """;
+
+                long importados;
+                try (PreparedStatement stmt = con.prepareStatement(sqlEspalhar)) {
+                    stmt.setInt(1, idEmpresa);
+                    stmt.setString(2, SENHA_PADRAO_CLIENTE);
+                    stmt.setInt(3, idEmpresa);
+                    importados = stmt.executeUpdate();
+                }
+
+                return new ResultadoImportacao(total, importados, rejeitados(con, "tmp_import_clientes", "cpf"));
+            });
+        } catch (SQLException e) {
+            System.out.println("ERRO ao importar clientes -> " + e.getMessage());
+            throw e;
+        } finally {
+            ClienteDAO.invalidarCache(idEmpresa);
+        }
+    }
+
+    public ResultadoImportacao importarTecnicos(int idEmpresa, Reader csv) throws SQLException {
+        try {
+            return Transacao.executar(con -> {
+                executar(con, """
+                    CREATE TEMP TABLE tmp_import_tecnicos (
+                        linha BIGSERIAL,
+                        nome TEXT, email TEXT, telefone TEXT, especialidade TEXT, senha TEXT,
+                        motivo TEXT
+                    ) ON COMMIT DROP
+                """);
+
+                long total = copiar(con,
+                        "COPY tmp_import_tecnicos (nome, email, telefone, especialidade, senha) FROM STDIN WITH (FORMAT csv, HEADER true)",
+                        csv);
+
+                executar(con, """
+                    UPDATE tmp_import_tecnicos
+                    SET nome = btrim(nome), email = btrim(email), telefone = btrim(telefone),
+                        especialidade = btrim(especialidade)
+                """);
+                //tabela temporaria nao passa pelo autovacuum: sem ANALYZE o planner chuta 1 linha
+                executar(con, "ANALYZE tmp_import_tecnicos");
+
+                marcar(con, "tmp_import_tecnicos", "Nome, email e senha são obrigatórios",
+                        "coalesce(nome, '') = '' OR coalesce(email, '') = '' OR coalesce(senha, '') = ''");
+                //tamanhos das colunas de tbl_tecnicos/tbl_contatos/tbl_usuarios
+                marcar(con, "tmp_import_tecnicos", "Nome muito longo (máx. 100)", "length(nome) > 100");
+                marcar(con, "tmp_import_tecnicos", "Email muito longo (máx. 100)", "length(email) > 100");
+                marcar(con, "tmp_import_tecnicos", "Telefone muito longo (máx. 30)", "length(telefone) > 30");
+                marcar(con, "tmp_import_tecnicos", "Especialidade muito longa (máx. 100)", "length(especialidade) > 100");
+                marcar(con, "tmp_import_tecnicos", "Senha muito longa (máx. 255)", "length(senha) > 255");
+                marcarRepetidos(con, "tmp_import_tecnicos", "email", "Email repetido no arquivo");
+                marcar(con, "tmp_import_tecnicos", "Email já cadastrado",
+                        "EXISTS (SELECT 1 FROM tbl_contatos c WHERE c.email = t.email)");
+
+                String sqlEspalhar = """
+                    WITH validos AS (
+                        SELECT linha, nome, email, telefone, especialidade, senha
+                        FROM tmp_import_tecnicos WHERE motivo IS NULL
+                    ),
+                    novos_contatos AS (
+                        INSERT INTO tbl_contatos (email, telefone)
+                        SELECT email, telefone FROM validos ORDER BY linha
+                        RETURNING id, email
+                    ),
+                    novos_usuarios AS (
+                        INSERT INTO tbl_usuarios (id_empresa, id_contato, nome_usuario, senha, role)
+                        SELECT ?, nc.id, v.nome, v.senha, 'tecnico'
+                        FROM novos_contatos nc JOIN validos v ON v.email = nc.email
+                        RETURNING id, id_contato
+                    )
+                    INSERT INTO tbl_tecnicos (id_empresa, id_usuario, nome, especialidade)
+                    SELECT ?, nu.id, v.nome, v.especialidade
+                    FROM novos_usuarios nu
+                    JOIN novos_contatos nc ON nc.id = nu.id_contato
+                    JOIN validos v ON v.email = nc.email
+                """;
+
+                long importados;
+                try (PreparedStatement stmt = con.prepareStatement(sqlEspalhar)) {
+                    stmt.setInt(1, idEmpresa);
+                    stmt.setInt(2, idEmpresa);
+                    importados = stmt.executeUpdate();
+                }
+
+                return new ResultadoImportacao(total, importados, rejeitados(con, "tmp_import_tecnicos", "email"));
+            });
+        } catch (SQLException e) {
+            System.out.println("ERRO ao importar tecnicos -> " + e.getMessage());
+            throw e;
+        } finally {
+            TecnicoDAO.invalidarCache(idEmpresa);
+        }
+    }
+
+    //COPY ... FROM STDIN direto do Reader, sem montar a lista em memoria
+    private long copiar(Connection con, String sqlCopy, Reader csv) throws SQLException {
+        CopyManager copy = con.unwrap(PGConnection.class).getCopyAPI();
+        try {
+            return copy.copyIn(sqlCopy, csv);
+        } catch (IOException e) {
+            throw new SQLException("Falha ao ler o arquivo CSV: " + e.getMessage(), e);
+        }
+    }
+
+    private void marcar(Connection con, String tabela, String motivo, String condicao) throws SQLException {
+        String sql = "UPDATE " + tabela + " t SET motivo = ? WHERE motivo IS NULL AND (" + condicao + ")";
+        try (PreparedStatement stmt = con.prepareStatement(sql)) {
+            stmt.setString(1, motivo);
+            stmt.executeUpdate();
+        }
+    }
+
+    //mantem a primeira ocorrencia de cada valor e rejeita as demais (uma passada com row_number)
+    private void marcarRepetidos(Connection con, String tabela, String coluna, String motivo) throws SQLException {
+        String sql = "UPDATE " + tabela + " t SET motivo = ? "
+                + "FROM (SELECT linha, row_number() OVER (PARTITION BY " + coluna + " ORDER BY linha) AS ocorrencia "
+                + "      FROM " + tabela + " WHERE motivo IS NULL) d "
+                + "WHERE d.linha = t.linha AND d.ocorrencia > 1";
+        try (PreparedStatement stmt = con.prepareStatement(sql)) {
+            stmt.setString(1, motivo);
+            stmt.executeUpdate();
+        }
+    }
+
+    private List<ResultadoImportacao.Rejeicao> rejeitados(Connection con, String tabela, String colunaChave) throws SQLException {
+        List<ResultadoImportacao.Rejeicao> lista = new ArrayList<>();
+        String sql = "SELECT linha, " + colunaChave + " AS chave, motivo FROM " + tabela
+                + " WHERE motivo IS NOT NULL ORDER BY linha";
+
+        try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                //+1 por causa do cabecalho do CSV
+                lista.add(new ResultadoImportacao.Rejeicao(rs.getLong("linha") + 1, rs.getString("chave"), rs.getString("motivo")));
+            }
+        }
+        return lista;
+    }
+
+    private void executar(Connection con, String sql) throws SQLException {
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.mycompany.projetotechdesk.dao;
+
+import com.mycompany.projetotechdesk.database.Mudanca;
+import com.mycompany.projetotechdesk.database.OuvinteMudancas;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Derruba as entradas de cache dos DAOs quando outra sessao altera o banco.
+ * Precisa ser registrado antes dos ouvintes das telas, para que eles ja
+ * leiam o valor novo ao reagir ao mesmo aviso.
+ *
+ * @author carlo
+ */
+public class InvalidadorCaches implements Consumer<Mudanca> {
+
+    private static final AtomicBoolean REGISTRADO = new AtomicBoolean(false);
+
+    private InvalidadorCaches() {
+    }
+
+    public static void registrar(OuvinteMudancas ouvinte) {
+        if (REGISTRADO.compareAndSet(false, true)) {
+            ouvinte.adicionarOuvinte(new InvalidadorCaches());
+        }
+    }
+
+    @Override
+    public void accept(Mudanca m) {
+        switch (m.tabela()) {
+            case Mudanca.OS -> OrdemServicoDAO.invalidarCacheOS(m.idEmpresa(), m.id());
+            case Mudanca.CLIENTES -> {
+                //nome do cliente aparece nas O.S. em cache
+                ClienteDAO.invalidarCache(m.idEmpresa());
+                OrdemServicoDAO.invalidarCacheOS();
+            }
+            case Mudanca.TECNICOS -> {
+                TecnicoDAO.invalidarCache(m.idEmpresa());
+                OrdemServicoDAO.invalidarCacheOS();
+            }
+            case Mudanca.TODAS -> {
+                ClienteDAO.limparCache();
+                TecnicoDAO.limparCache();
+                OrdemServicoDAO.limparCaches();
+            }
+            default -> { }
+        }
+    }
+}
@@ -5,16 +5,31 @@
 package com.mycompany.projetotechdesk.dao;
 
 import com.mycompany.projetotechdesk.Model.Cliente;
+import com.mycompany.projetotechdesk.Model.DashboardStats;
+import com.mycompany.projetotechdesk.Model.FaturamentoMensal;
 import com.mycompany.projetotechdesk.Model.OrdemServico;
 import com.mycompany.projetotechdesk.Model.Tecnico;
 import com.mycompany.projetotechdesk.database.Conexao;
+import com.mycompany.projetotechdesk.util.CacheTTL;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  *
@@ -22,51 +37,66 @@ import java.util.List;
  */
 public class OrdemServicoDAO {
     
-    private Connection con;
+    //painel por id_empresa. TTL curto e invalidado a cada gravacao de O.S.
+    private static final CacheTTL<Integer, DashboardStats> CACHE_DASHBOARD = new CacheTTL<>(30_000);
+    
+    //mapa de identidade das O.S. vistas ha pouco (listagem e buscarPorId).
+    //Gravacoes em O.S., clientes e tecnicos invalidam; o TTL cobre alteracoes de outros usuarios.
+    private record ChaveOS(int idEmpresa, int idOS) {}
+    private static final CacheTTL<ChaveOS, OrdemServico> CACHE_OS = new CacheTTL<>(60_000, 500);
+    
+    private static final String SQL_INSERIR_OS = "INSERT INTO tbl_ordens_servico "
+            + "(id_empresa, id_cliente, id_tecnico, descricao_problema, status, data_entrada, data_saida, valor_mao_obra, valor_pecas) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    //consultas que dependem dos indices da V001/V004 (conferidas por EXPLAIN no IndicesConsultasTest)
+    static final String SQL_PAGINA_OS = "SELECT * FROM vw_detalhes_os WHERE id_empresa = ? "
+            + "ORDER BY data_entrada DESC, id_os DESC LIMIT ?";
+    static final String SQL_PAGINA_OS_DEPOIS = "SELECT * FROM vw_detalhes_os WHERE id_empresa = ? "
+            //o data_entrada <= ? repete o cursor, mas sozinho ele deixa o planner
+            //descartar as particoes mais novas (comparacao de linha nao poda)
+            + "AND data_entrada <= ? AND (data_entrada, id_os) < (?, ?) "
+            + "ORDER BY data_entrada DESC, id_os DESC LIMIT ?";
+    //uma unica passada na tabela: cada total e um agregado com FILTER
+    static final String SQL_DASHBOARD = """
+            SELECT
+                COUNT(*) FILTER (WHERE status = 'Aberta')       AS total_abertas,
+                COUNT(*) FILTER (WHERE status = 'Em Andamento') AS total_andamento,
+                COUNT(*) FILTER (WHERE status = 'Concluida')    AS total_concluidas,
+                COUNT(*) FILTER (WHERE status = 'Cancelada')    AS total_canceladas,
+                COALESCE(SUM(valor_total) FILTER (WHERE status = 'Concluida'), 0) AS valor_faturado,
+                COALESCE(SUM(valor_total) FILTER (WHERE status NOT IN ('Concluida', 'Cancelada')), 0) AS valor_pendente
+            FROM tbl_ordens_servico
+            WHERE id_empresa = ?
+        """;
+    
+    //O.S. por executeBatch no adicionarLote
+    public static final int TAMANHO_LOTE = 500;
+    
+    //linhas trazidas do servidor por vez no streamOS (cursor no servidor)
+    public static final int FETCH_SIZE_STREAM = 500;
+    
+    //recebe as O.S. uma a uma no percorrerOS
+    @FunctionalInterface
+    public interface VisitanteOS {
+        void visitar(OrdemServico os) throws SQLException;
+    }
     
     //adiciona uma nova O.S no banco.
     public void adicionar(OrdemServico os) throws SQLException {
         
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         
         if (con == null){
             System.out.println("ERRO DAO: Conexao nula ao tentar adicionar OS.");
             return;
         }
         
-        String sql = "INSERT INTO tbl_ordens_servico "
-                + "(id_empresa, id_cliente, id_tecnico, descricao_problema, status, data_entrada, data_saida, valor_mao_obra, valor_pecas) "
-                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        
         PreparedStatement stmt = null;
         
         try {
-            stmt = con.prepareStatement(sql);
-            
-            stmt.setInt(1, os.getEmpresa().getId());
-            stmt.setInt(2, os.getCliente().getId());
-            
-            //verifica se tem tecnico (pode ser nulo em ordens nova)
-            if (os.getTecnico() != null && os.getTecnico().getId() > 0){
-                stmt.setInt(3, os.getTecnico().getId());
-            }else {
-                stmt.setNull(3, java.sql.Types.INTEGER);
-            }
-            
-            stmt.setString(4, os.getDescricaoProblema());
-            stmt.setString(5, os.getStatus());
-            
-            //Converter java.util.Date para java.sql.Date
-            stmt.setDate(6, new Date(os.getDataEntrada().getTime()));
-            
-            if(os.getDataSaida() != null) {
-                stmt.setDate(7, new Date(os.getDataSaida().getTime()));
-            }else {
-                stmt.setNull(7, java.sql.Types.DATE);
-            }
-            
-            stmt.setDouble(8, os.getValorMaoObra());
-            stmt.setDouble(9, os.getValorPecas());
+            stmt = con.prepareStatement(SQL_INSERIR_OS);
+            preencherInsercao(stmt, os);
             
             stmt.executeUpdate();
             
@@ -74,6 +104,7 @@ public class OrdemServicoDAO {
             System.out.println("ERRO, ao tentar adicionar OS -> " + e.getMessage());
             
         }finally {
+            CACHE_DASHBOARD.invalidar(os.getEmpresa().getId());
             if (stmt != null) stmt.close();
             if (con != null){
                 con.close();
@@ -83,10 +114,124 @@ public class OrdemServicoDAO {
     }
     
     
+    //Insere varias O.S. com addBatch/executeBatch (com pgjdbc.reWriteBatchedInserts=true o
+    //driver junta cada bloco num INSERT ... VALUES (...), (...) so).
+    //Tudo roda numa transacao; cada bloco tem um savepoint. Se um bloco falhar ele e
+    //refeito linha a linha, e so as linhas com erro ficam de fora: o resto do lote e gravado.
+    public ResultadoLote adicionarLote(List<OrdemServico> ordens) throws SQLException {
+        int[] ids = new int[ordens.size()];
+        List<ResultadoLote.Falha> falhas = new ArrayList<>();
+        List<Integer> validas = new ArrayList<>();
+        Set<Integer> empresas = new HashSet<>();
+        
+        //campos obrigatorios sao conferidos antes de ir ao banco
+        for (int i = 0; i < ordens.size(); i++) {
+            OrdemServico os = ordens.get(i);
+            if (os == null || os.getEmpresa() == null || os.getCliente() == null || os.getDataEntrada() == null) {
+                falhas.add(new ResultadoLote.Falha(i, "Empresa, cliente e data de entrada são obrigatórios."));
+            } else {
+                validas.add(i);
+                empresas.add(os.getEmpresa().getId());
+            }
+        }
+        
+        try {
+            Transacao.executarSemRetorno(conexao -> {
+                try (PreparedStatement stmt = conexao.prepareStatement(SQL_INSERIR_OS, new String[]{"id"})) {
+                    
+                    for (int inicio = 0; inicio < validas.size(); inicio += TAMANHO_LOTE) {
+                        List<Integer> bloco = validas.subList(inicio, Math.min(inicio + TAMANHO_LOTE, validas.size()));
+                        Savepoint savepoint = conexao.setSavepoint();
+                        
+                        try {
+                            for (int i : bloco) {
+                                preencherInsercao(stmt, ordens.get(i));
+                                stmt.addBatch();
+                            }
+                            stmt.executeBatch();
+                            lerIdsGerados(stmt, bloco, ids);
+                            conexao.releaseSavepoint(savepoint);
+                            
+                        } catch (SQLException e) {
+                            stmt.clearBatch();
+                            conexao.rollback(savepoint);
+                            inserirLinhaALinha(conexao, stmt, ordens, bloco, ids, falhas);
+                        }
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            System.out.println("ERRO, ao adicionar lote de OS -> " + e.getMessage());
+            throw e;
+        } finally {
+            for (int idEmpresa : empresas) {
+                CACHE_DASHBOARD.invalidar(idEmpresa);
+            }
+        }
+        
+        falhas.sort(Comparator.comparingInt(ResultadoLote.Falha::indice));
+        return new ResultadoLote(ids, falhas);
+    }
+    
+    //bloco que falhou no executeBatch: tenta cada O.S. com seu proprio savepoint
+    private void inserirLinhaALinha(Connection conexao, PreparedStatement stmt, List<OrdemServico> ordens,
+            List<Integer> bloco, int[] ids, List<ResultadoLote.Falha> falhas) throws SQLException {
+        for (int i : bloco) {
+            Savepoint savepoint = conexao.setSavepoint();
+            try {
+                preencherInsercao(stmt, ordens.get(i));
+                stmt.executeUpdate();
+                lerIdsGerados(stmt, List.of(i), ids);
+                conexao.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                conexao.rollback(savepoint);
+                falhas.add(new ResultadoLote.Falha(i, e.getMessage()));
+            }
+        }
+    }
+    
+    //as chaves voltam na mesma ordem em que as linhas foram enviadas
+    private void lerIdsGerados(PreparedStatement stmt, List<Integer> indices, int[] ids) throws SQLException {
+        try (ResultSet chaves = stmt.getGeneratedKeys()) {
+            for (int i : indices) {
+                if (!chaves.next()) break;
+                ids[i] = chaves.getInt(1);
+            }
+        }
+    }
+    
+    private void preencherInsercao(PreparedStatement stmt, OrdemServico os) throws SQLException {
+        stmt.setInt(1, os.getEmpresa().getId());
+        stmt.setInt(2, os.getCliente().getId());
+        
+        //verifica se tem tecnico (pode ser nulo em ordens nova)
+        if (os.getTecnico() != null && os.getTecnico().getId() > 0){
+            stmt.setInt(3, os.getTecnico().getId());
+        }else {
+            stmt.setNull(3, java.sql.Types.INTEGER);
+        }
+        
+        stmt.setString(4, os.getDescricaoProblema());
+        stmt.setString(5, os.getStatus());
+        
+        //Converter java.util.Date para java.sql.Date
+        stmt.setDate(6, new Date(os.getDataEntrada().getTime()));
+        
+        if(os.getDataSaida() != null) {
+            stmt.setDate(7, new Date(os.getDataSaida().getTime()));
+        }else {
+            stmt.setNull(7, java.sql.Types.DATE);
+        }
+        
+        stmt.setDouble(8, os.getValorMaoObra());
+        stmt.setDouble(9, os.getValorPecas());
+    }
+    
+    
     //atualizar OS
     public void atualizar(OrdemServico os) throws SQLException {
         
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         
         if (con == null) {
             System.out.println("ERRO DAO: Conexao nula ao tentar atualizar OS.");
@@ -134,6 +279,8 @@ public class OrdemServicoDAO {
             System.out.println("ERRO, ao tentar atualizar OS -> " + e.getMessage());
             
         } finally {
+            CACHE_DASHBOARD.invalidar(os.getEmpresa().getId());
+            CACHE_OS.invalidar(new ChaveOS(os.getEmpresa().getId(), os.getId()));
             if (stmt != null) stmt.close();
             if (con != null) {
                 con.close();
@@ -146,7 +293,7 @@ public class OrdemServicoDAO {
     //excluir OS
     public void excluir(int idOS, int idEmpresa) throws SQLException {
         
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         
         if (con == null) {
             System.out.println("ERRO DAO: Conexao nula ao tentar excluir OS.");
@@ -166,6 +313,8 @@ public class OrdemServicoDAO {
             System.out.println("ERRO, ao deletar OS -> " + e.getMessage());
             
         } finally {
+            CACHE_DASHBOARD.invalidar(idEmpresa);
+            CACHE_OS.invalidar(new ChaveOS(idEmpresa, idOS));
             if (stmt != null) stmt.close();
             if (con != null) {
                 con.close();
@@ -177,7 +326,7 @@ public class OrdemServicoDAO {
     
     //listar todas as OS
     public List<OrdemServico> listarTabelaOS(int idEmpresa) throws SQLException {
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         
         if (con == null) {
             System.out.println("ERRO DAO: Conexao nula ao tentar listar OS.");
@@ -197,42 +346,7 @@ public class OrdemServicoDAO {
             rs = stmt.executeQuery();
             
             while (rs.next()) {
-                OrdemServico os = new OrdemServico();
-                os.setId(rs.getInt("id_os"));
-                
-                
-                
-                os.setStatus(rs.getString("status"));
-                
-                os.setDataEntrada(rs.getDate("data_entrada"));
-                os.setDataSaida(rs.getDate("data_saida"));
-                os.setValorTotal(rs.getDouble("valor_total"));
-                
-                os.setDescricaoProblema(rs.getString("descricao_problema"));
-                os.setValorMaoObra(rs.getDouble("valor_mao_obra"));
-                os.setValorPecas(rs.getDouble("valor_pecas"));
-                
-                //Cliente (apenas nome e ID, vindos da view)
-                Cliente c = new Cliente();
-                c.setId(rs.getInt("id_cliente"));
-                c.setNome(rs.getString("nome_cliente"));
-                os.setCliente(c);
-                
-                
-                //tecnico (pode ser nulo)
-                int idTecnico = rs.getInt("id_tecnico");
-                if (!rs.wasNull()) {
-                    Tecnico t = new Tecnico();
-                    t.setId(idTecnico);
-                    t.setNome(rs.getString("nome_tecnico"));
-                    os.setTecnico(t);
-                }
-                os.setDescricaoProblema(rs.getString("descricao_problema")); 
-
-                // --- ADICIONE ISTO PARA TESTAR ---
-                System.out.println("ID OS: " + os.getId());
-                System.out.println("Descrição no Banco: " + rs.getString("descricao_problema"));
-                lista.add(os);
+                lista.add(mapearOS(rs));
             }
             
         } catch (SQLException e) {
@@ -251,119 +365,374 @@ public class OrdemServicoDAO {
     }
     
     
-    //Busca dados para relatorios (Function).
-    public ResultSet carregarRelatorioStatus(int idEmpresa) throws SQLException {
+    //Lista uma pagina de O.S. (mais recentes primeiro) usando paginacao por chave.
+    //depoisDe == null traz a primeira pagina; para as seguintes passe CursorOS.depoisDe(ultimaOSDaPagina).
+    //Diferente de OFFSET, o custo de cada pagina nao cresce conforme o usuario desce na lista.
+    public List<OrdemServico> listarPaginaOS(int idEmpresa, CursorOS depoisDe, int tamanhoPagina) throws SQLException {
+        Connection conexao = Conexao.getConexao();
+        
+        if (conexao == null) {
+            System.out.println("ERRO DAO: Conexao nula ao tentar listar pagina de OS.");
+            return new ArrayList<>();
+        }
         
-        con = Conexao.getConexao();
+        String sql = depoisDe == null ? SQL_PAGINA_OS : SQL_PAGINA_OS_DEPOIS;
         
-        if (con == null) {
-            System.out.println("ERRO DAO: Conexao nula ao tentar relatorio.");
-            return null;
+        List<OrdemServico> lista = new ArrayList<>(tamanhoPagina);
+        
+        try (conexao; PreparedStatement stmt = conexao.prepareStatement(sql)) {
+            int i = 1;
+            stmt.setInt(i++, idEmpresa);
+            if (depoisDe != null) {
+                Date dataCursor = new Date(depoisDe.dataEntrada().getTime());
+                stmt.setDate(i++, dataCursor);
+                stmt.setDate(i++, dataCursor);
+                stmt.setInt(i++, depoisDe.idOS());
+            }
+            stmt.setInt(i, tamanhoPagina);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    OrdemServico os = mapearOS(rs);
+                    CACHE_OS.put(new ChaveOS(idEmpresa, os.getId()), os);
+                    lista.add(os);
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("ERRO, ao listar pagina de OS -> " + e.getMessage());
+            throw e;
         }
         
-        String sql = "SELECT * FROM fn_relatorio_status_os(?)";
+        return lista;
+    }
+    
+    
+    //Uma O.S. pelo id (consulta pela PK), passando antes pelo mapa de identidade.
+    //Retorna null se a O.S. nao existe ou e de outra empresa.
+    public OrdemServico buscarPorId(int idOS, int idEmpresa) throws SQLException {
+        return CACHE_OS.getOuCarregar(new ChaveOS(idEmpresa, idOS), chave -> consultarPorId(chave.idOS(), chave.idEmpresa()));
+    }
+    
+    private OrdemServico consultarPorId(int idOS, int idEmpresa) throws SQLException {
+        Connection conexao = Conexao.getConexao();
+        if (conexao == null) throw new SQLException("Sem conexão com o banco.");
         
-        PreparedStatement stmt = con.prepareStatement(sql);
-        stmt.setInt(1, idEmpresa);
+        String sql = "SELECT * FROM vw_detalhes_os WHERE id_os = ? AND id_empresa = ?";
         
-        return stmt.executeQuery();
+        try (conexao; PreparedStatement stmt = conexao.prepareStatement(sql)) {
+            stmt.setInt(1, idOS);
+            stmt.setInt(2, idEmpresa);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapearOS(rs) : null;
+            }
+        } catch (SQLException e) {
+            System.out.println("ERRO, ao buscar OS -> " + e.getMessage());
+            throw e;
+        }
     }
     
-    //retorna um Array com todos os dados do relatorio
-    public double[] carregarDadosRelatorio(int idEmpresa) throws SQLException {
-        con = Conexao.getConexao();
+    //varias O.S. numa consulta so (ex.: rajada de avisos do LISTEN depois de um lote ou importacao).
+    //Ids que nao existem (ou sao de outra empresa) nao aparecem. Nao passa pelo cache: quem chama
+    //acabou de saber que essas linhas mudaram.
+    public List<OrdemServico> buscarPorIds(List<Integer> ids, int idEmpresa) throws SQLException {
+        if (ids.isEmpty()) return new ArrayList<>();
         
-        //se a conexao falhar, retorna tudo zerado
-        if (con == null) {
-            return new double[]{0, 0, 0, 0, 0};
+        Connection conexao = Conexao.getConexao();
+        if (conexao == null) throw new SQLException("Sem conexão com o banco.");
+        
+        String sql = "SELECT * FROM vw_detalhes_os WHERE id_os = ANY(?) AND id_empresa = ?";
+        
+        List<OrdemServico> lista = new ArrayList<>(ids.size());
+        
+        try (conexao; PreparedStatement stmt = conexao.prepareStatement(sql)) {
+            stmt.setArray(1, conexao.createArrayOf("int4", ids.toArray()));
+            stmt.setInt(2, idEmpresa);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(mapearOS(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("ERRO, ao buscar OS por ids -> " + e.getMessage());
+            throw e;
         }
         
-        double[] resultados = new double[6];
-        PreparedStatement stmt = null;
-        ResultSet rs = null;
+        return lista;
+    }
+    
+    //Busca textual na descricao do problema (ex.: fonte queimada, "tela azul" -placa).
+    //Usa a coluna busca_descricao (tsvector) e o indice GIN em vez de LIKE '%...%'.
+    //Resultados do mais relevante para o menos; a proxima pagina comeca depois do ultimo resultado.
+    public List<ResultadoBuscaOS> buscarPorTexto(int idEmpresa, String consulta, int limite) throws SQLException {
+        return buscarPorTexto(idEmpresa, consulta, null, limite);
+    }
+    
+    public List<ResultadoBuscaOS> buscarPorTexto(int idEmpresa, String consulta, ResultadoBuscaOS depoisDe, int limite) throws SQLException {
+        List<ResultadoBuscaOS> lista = new ArrayList<>(limite);
+        if (consulta == null || consulta.isBlank()) return lista;
         
-        try {
-            //Total Abertas
-            String sql1 = "SELECT COUNT(*) FROM tbl_ordens_servico WHERE id_empresa = ? AND status = 'Aberta'";
-            stmt = con.prepareStatement(sql1);
-            stmt.setInt(1, idEmpresa);
-            rs = stmt.executeQuery();
-            if (rs.next()) {
-                resultados[0] = rs.getInt(1);
+        Connection conexao = Conexao.getConexao();
+        if (conexao == null) throw new SQLException("Sem conexão com o banco.");
+        
+        //o ranking e a paginacao ficam so na tabela (indice GIN); a view e o
+        //ts_headline, que relê o texto, rodam apenas para as linhas da pagina
+        String sql = "WITH q AS (SELECT websearch_to_tsquery('portuguese', ?) AS consulta) "
+                + "SELECT v.*, r.relevancia, "
+                + "ts_headline('portuguese', v.descricao_problema, q.consulta, "
+                + "'StartSel=" + ResultadoBuscaOS.MARCA_INICIO + ", StopSel=" + ResultadoBuscaOS.MARCA_FIM
+                + ", MinWords=8, MaxWords=20, MaxFragments=2, FragmentDelimiter=\" ... \"') AS trecho "
+                + "FROM (SELECT os.id, ts_rank(os.busca_descricao, q.consulta) AS relevancia "
+                + "      FROM tbl_ordens_servico os, q "
+                + "      WHERE os.id_empresa = ? AND os.busca_descricao @@ q.consulta "
+                + (depoisDe == null ? "" : "AND (ts_rank(os.busca_descricao, q.consulta), os.id) < (CAST(? AS REAL), ?) ")
+                + "      ORDER BY relevancia DESC, os.id DESC LIMIT ?) r "
+                + "JOIN vw_detalhes_os v ON v.id_os = r.id "
+                + "CROSS JOIN q "
+                + "ORDER BY r.relevancia DESC, r.id DESC";
+        
+        try (conexao; PreparedStatement stmt = conexao.prepareStatement(sql)) {
+            int i = 1;
+            stmt.setString(i++, consulta);
+            stmt.setInt(i++, idEmpresa);
+            if (depoisDe != null) {
+                stmt.setFloat(i++, depoisDe.relevancia());
+                stmt.setInt(i++, depoisDe.os().getId());
             }
-            rs.close();
-            stmt.close();
+            stmt.setInt(i, limite);
             
-            //Total Em Andamento
-            String sql2 = "SELECT COUNT(*) FROM tbl_ordens_servico WHERE id_empresa = ? AND status = 'Em Andamento'";
-            stmt = con.prepareStatement(sql2);
-            stmt.setInt(1, idEmpresa);
-            rs = stmt.executeQuery();
-            if (rs.next()) {
-                resultados[1] = rs.getInt(1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    OrdemServico os = mapearOS(rs);
+                    CACHE_OS.put(new ChaveOS(idEmpresa, os.getId()), os);
+                    lista.add(new ResultadoBuscaOS(os, rs.getFloat("relevancia"), rs.getString("trecho")));
+                }
             }
-            rs.close();
-            stmt.close();
-            
-            //Total Concluidas
-            String sql3 = "SELECT COUNT(*) FROM tbl_ordens_servico WHERE id_empresa = ? AND status = 'Concluida'";
-            stmt = con.prepareStatement(sql3);
-            stmt.setInt(1, idEmpresa);
-            rs = stmt.executeQuery();
-            if (rs.next()) {
-                resultados[2] = rs.getInt(1);
+        } catch (SQLException e) {
+            System.out.println("ERRO, ao buscar OS por texto -> " + e.getMessage());
+            throw e;
+        }
+        
+        return lista;
+    }
+    
+    //tbl_ordens_servico e particionada por ano de entrada: garante as particoes do ano
+    //atual e dos proximos (chamado ao iniciar). O.S. de anos sem particao caem na
+    //particao padrao e sao movidas quando o ano ganha a sua.
+    public static int criarParticoesFuturas(int anosAFrente) throws SQLException {
+        Connection conexao = Conexao.getConexao();
+        if (conexao == null) throw new SQLException("Sem conexão com o banco.");
+        
+        try (conexao; PreparedStatement stmt = conexao.prepareStatement("SELECT fn_criar_particoes_futuras_os(?)")) {
+            stmt.setInt(1, anosAFrente);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
             }
-            rs.close();
-            stmt.close();
+        } catch (SQLException e) {
+            System.out.println("ERRO, ao criar particoes de OS -> " + e.getMessage());
+            throw e;
+        }
+    }
+    
+    //nome de cliente/tecnico mudou ou tecnico saiu: as O.S. em memoria podem estar desatualizadas
+    static void invalidarCacheOS() {
+        CACHE_OS.limpar();
+    }
+    
+    //outra sessao mexeu nesta O.S. (aviso do OuvinteMudancas)
+    static void invalidarCacheOS(int idEmpresa, int idOS) {
+        CACHE_DASHBOARD.invalidar(idEmpresa);
+        CACHE_OS.invalidar(new ChaveOS(idEmpresa, idOS));
+    }
+    
+    static void limparCaches() {
+        CACHE_DASHBOARD.limpar();
+        CACHE_OS.limpar();
+    }
+    
+    
+    //Todas as O.S. da empresa como Stream preenchido sob demanda (para exportacao e relatorios).
+    //Com autocommit desligado e fetchSize, o pgjdbc abre um cursor no servidor e traz
+    //FETCH_SIZE_STREAM linhas por vez: a memoria fica constante seja qual for o total.
+    //A conexao so volta ao pool no close() do Stream, entao use sempre try-with-resources.
+    public Stream<OrdemServico> streamOS(int idEmpresa) throws SQLException {
+        Connection conexao = Conexao.getConexao();
+        if (conexao == null) throw new SQLException("Sem conexão com o banco.");
+        
+        String sql = "SELECT * FROM vw_detalhes_os WHERE id_empresa = ? ORDER BY data_entrada DESC, id_os DESC";
+        
+        PreparedStatement stmt = null;
+        ResultSet rs;
+        
+        try {
+            conexao.setAutoCommit(false);
+            conexao.setReadOnly(true);
             
-            //Valor Total Faturado (soma das Concluidas)
-            String sql4 = "SELECT SUM(valor_total) FROM tbl_ordens_servico WHERE id_empresa = ? AND status = 'Concluida'";
-            stmt = con.prepareStatement(sql4);
+            //variante com flags: fica fora do cache de statements, o fetchSize nao vaza para outros DAOs
+            stmt = conexao.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(FETCH_SIZE_STREAM);
             stmt.setInt(1, idEmpresa);
             rs = stmt.executeQuery();
-            if (rs.next()) {
-                resultados[3] = rs.getDouble(1);
-            }
-            rs.close();
-            stmt.close();
             
-            //Valor Pedentes
-            String sql5 = "SELECT SUM(valor_total) FROM tbl_ordens_servico WHERE id_empresa = ? AND status != 'Concluida' AND status != 'Cancelada'";
-            stmt = con.prepareStatement(sql5);
-            stmt.setInt(1, idEmpresa);
-            rs = stmt.executeQuery();
-            if (rs.next()) {
-                resultados[4] = rs.getDouble(1);
+        } catch (SQLException e) {
+            System.out.println("ERRO, ao abrir stream de OS -> " + e.getMessage());
+            if (stmt != null) stmt.close();
+            conexao.close();
+            throw e;
+        }
+        
+        final ResultSet cursor = rs;
+        final PreparedStatement stmtCursor = stmt;
+        
+        Spliterator<OrdemServico> linhas = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super OrdemServico> acao) {
+                try {
+                    if (!cursor.next()) return false;
+                    acao.accept(mapearOS(cursor));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("ERRO ao ler OS do cursor -> " + e.getMessage(), e);
+                }
             }
-            rs.close();
-            stmt.close();
-            
-            // Total Canceladas
-            String sql6 = "SELECT COUNT(*) FROM tbl_ordens_servico WHERE id_empresa = ? AND status = 'Cancelada'";
-            stmt = con.prepareStatement(sql6);
-            stmt.setInt(1, idEmpresa);
-            rs = stmt.executeQuery();
-            if (rs.next()) {
-                resultados[5] = rs.getInt(1);
+        };
+        
+        return StreamSupport.stream(linhas, false).onClose(() -> {
+            try {
+                cursor.close();
+                stmtCursor.close();
+            } catch (SQLException e) {
+                System.out.println("ERRO ao fechar stream de OS -> " + e.getMessage());
+            } finally {
+                try {
+                    //o pool faz rollback da transacao de leitura e religa o autocommit
+                    conexao.close();
+                } catch (SQLException e) {
+                    System.out.println("ERRO ao devolver conexao do stream -> " + e.getMessage());
+                }
             }
-            rs.close();
-            stmt.close();
-
-            
-            
+        });
+    }
+    
+    
+    //Mesmo cursor do streamOS, mas entregando linha a linha para um visitante.
+    //Retorna quantas O.S. foram visitadas.
+    public int percorrerOS(int idEmpresa, VisitanteOS visitante) throws SQLException {
+        int total = 0;
+        
+        try (Stream<OrdemServico> stream = streamOS(idEmpresa)) {
+            Iterator<OrdemServico> it = stream.iterator();
+            while (it.hasNext()) {
+                visitante.visitar(it.next());
+                total++;
+            }
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof SQLException sql) throw sql;
+            throw e;
+        }
+        return total;
+    }
+    
+    
+    //monta a O.S. a partir de uma linha da vw_detalhes_os
+    private OrdemServico mapearOS(ResultSet rs) throws SQLException {
+        OrdemServico os = new OrdemServico();
+        os.setId(rs.getInt("id_os"));
+        
+        os.setStatus(rs.getString("status"));
+        
+        os.setDataEntrada(rs.getDate("data_entrada"));
+        os.setDataSaida(rs.getDate("data_saida"));
+        os.setValorTotal(rs.getDouble("valor_total"));
+        
+        os.setDescricaoProblema(rs.getString("descricao_problema"));
+        os.setValorMaoObra(rs.getDouble("valor_mao_obra"));
+        os.setValorPecas(rs.getDouble("valor_pecas"));
+        
+        //Cliente (apenas nome e ID, vindos da view)
+        Cliente c = new Cliente();
+        c.setId(rs.getInt("id_cliente"));
+        c.setNome(rs.getString("nome_cliente"));
+        os.setCliente(c);
+        
+        //tecnico (pode ser nulo)
+        int idTecnico = rs.getInt("id_tecnico");
+        if (!rs.wasNull()) {
+            Tecnico t = new Tecnico();
+            t.setId(idTecnico);
+            t.setNome(rs.getString("nome_tecnico"));
+            os.setTecnico(t);
+        }
+        return os;
+    }
+    
+    
+    //numeros do painel de relatorios (vem do cache se alguem ja consultou ha pouco)
+    public DashboardStats carregarDadosRelatorio(int idEmpresa) {
+        try {
+            return CACHE_DASHBOARD.getOuCarregar(idEmpresa, this::consultarDashboard);
         } catch (SQLException e) {
+            //se a conexao falhar, retorna tudo zerado (e nao guarda no cache)
             System.out.println("ERRO DAO Relatorio: " + e.getMessage());
+            return DashboardStats.vazio();
+        }
+    }
+    
+    
+    //Faturamento dos ultimos "meses" meses (o atual incluso), do mais antigo ao mais novo.
+    //Le a tbl_faturamento_mensal, mantida pelos triggers: custo proporcional aos meses, nao as O.S.
+    //Meses sem O.S. concluida nao aparecem.
+    public List<FaturamentoMensal> listarFaturamentoMensal(int idEmpresa, int meses) throws SQLException {
+        Connection conexao = Conexao.getConexao();
+        if (conexao == null) throw new SQLException("Sem conexão com o banco.");
+        
+        String sql = "SELECT mes, total_os, valor_total FROM tbl_faturamento_mensal "
+                + "WHERE id_empresa = ? AND mes >= ? AND total_os > 0 "
+                + "ORDER BY mes";
+        
+        List<FaturamentoMensal> lista = new ArrayList<>(meses);
+        
+        try (conexao; PreparedStatement stmt = conexao.prepareStatement(sql)) {
+            stmt.setInt(1, idEmpresa);
+            stmt.setObject(2, YearMonth.now().minusMonths(meses - 1).atDay(1));
             
-        } finally {
-            if(rs != null) rs.close();
-            if(stmt != null) stmt.close();
-            if(con != null) {
-                con.close();
-                System.out.println("Banco fechado (Relatório)");
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(new FaturamentoMensal(
+                            YearMonth.from(rs.getObject("mes", LocalDate.class)),
+                            rs.getInt("total_os"),
+                            rs.getDouble("valor_total")));
+                }
             }
+        } catch (SQLException e) {
+            System.out.println("ERRO, ao listar faturamento mensal -> " + e.getMessage());
+            throw e;
         }
         
-        return resultados;
+        return lista;
+    }
+    
+    private DashboardStats consultarDashboard(int idEmpresa) throws SQLException {
+        Connection conexao = Conexao.getConexao();
+        if (conexao == null) throw new SQLException("Sem conexão com o banco.");
+        
+        try (conexao; PreparedStatement stmt = conexao.prepareStatement(SQL_DASHBOARD)) {
+            stmt.setInt(1, idEmpresa);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) return DashboardStats.vazio();
+                
+                return new DashboardStats(
+                        rs.getLong("total_abertas"),
+                        rs.getLong("total_andamento"),
+                        rs.getLong("total_concluidas"),
+                        rs.getLong("total_canceladas"),
+                        rs.getDouble("valor_faturado"),
+                        rs.getDouble("valor_pendente"));
+            }
+        }
     }
     
 }
@@ -0,0 +1,18 @@
+package com.mycompany.projetotechdesk.dao;
+
+import com.mycompany.projetotechdesk.Model.OrdemServico;
+
+/**
+ * Uma O.S. encontrada pela busca textual na descricao do problema.
+ *
+ * relevancia vem do ts_rank (maior = mais relevante) e trecho e a parte da
+ * descricao onde os termos aparecem, com cada termo entre MARCA_INICIO e
+ * MARCA_FIM. Para a proxima pagina passe o ultimo resultado como depoisDe.
+ *
+ * @author carlo
+ */
+public record ResultadoBuscaOS(OrdemServico os, float relevancia, String trecho) {
+
+    public static final String MARCA_INICIO = "«";
+    public static final String MARCA_FIM = "»";
+}
@@ -0,0 +1,34 @@
+package com.mycompany.projetotechdesk.dao;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Resultado de uma importacao em massa (CSV -> banco).
+ *
+ * @author carlo
+ */
+public record ResultadoImportacao(long totalLinhas, long importados, List<Rejeicao> rejeitados) {
+
+    //linha do arquivo (contando o cabecalho como linha 1) que nao foi importada
+    public record Rejeicao(long linhaArquivo, String chave, String motivo) {
+    }
+
+    //grava o relatorio de rejeitados em CSV: linha;chave;motivo
+    public void gravarRejeitados(Writer saida) throws IOException {
+        saida.write("linha;chave;motivo\n");
+        for (Rejeicao r : rejeitados) {
+            saida.write(r.linhaArquivo() + ";" + csv(r.chave()) + ";" + csv(r.motivo()) + "\n");
+        }
+        saida.flush();
+    }
+
+    private static String csv(String valor) {
+        if (valor == null) return "";
+        if (valor.contains(";") || valor.contains("\"") || valor.contains("\n")) {
+            return "\"" + valor.replace("\"", "\"\"") + "\"";
+        }
+        return valor;
+    }
+}
@@ -0,0 +1,26 @@
+package com.mycompany.projetotechdesk.dao;
+
+import java.util.List;
+
+/**
+ * Resultado de uma gravacao em lote.
+ *
+ * idsGerados tem uma posicao para cada item enviado, na mesma ordem;
+ * itens que falharam ficam com 0 e aparecem em falhas com o motivo.
+ *
+ * @author carlo
+ */
+public record ResultadoLote(int[] idsGerados, List<Falha> falhas) {
+
+    //item da lista original (indice) que nao foi gravado
+    public record Falha(int indice, String motivo) {
+    }
+
+    public int totalGravados() {
+        return idsGerados.length - falhas.size();
+    }
+
+    public boolean teveFalhas() {
+        return !falhas.isEmpty();
+    }
+}
@@ -8,6 +8,7 @@ import com.mycompany.projetotechdesk.Model.Contato;
 import com.mycompany.projetotechdesk.Model.Endereco;
 import com.mycompany.projetotechdesk.Model.Tecnico;
 import com.mycompany.projetotechdesk.database.Conexao;
+import com.mycompany.projetotechdesk.util.CacheTTL;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -21,10 +22,17 @@ import java.util.List;
  */
 public class TecnicoDAO {
     
-    private Connection con;
+    //lista de tecnicos por id_empresa: lida varias vezes ao abrir o Principal e apos cada gravacao.
+    //Invalidada por adicionar/atualizar/excluir (e pela importacao em massa).
+    private static final CacheTTL<Integer, List<Tecnico>> CACHE_LISTA = new CacheTTL<>(5 * 60_000, 50);
+
+    //O.S. ativas do tecnico (idx_os_tecnico_status). Os valores sao exatamente os do cbxStatus / ModeloTabelaOS
+    static final String SQL_OS_ATIVAS = "SELECT COUNT(*) FROM tbl_ordens_servico "
+            + "WHERE id_tecnico = ? AND id_empresa = ? "
+            + "AND status IN ('Aberta', 'Em Andamento')";
     
     public void adicionar(Tecnico tecnico, String senha, int idEmpresa) throws SQLException{
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         if (con == null) return;
         
         // Procedure nova (sem endereço)
@@ -45,6 +53,7 @@ public class TecnicoDAO {
             System.out.println("ERRO add tecnico: " + e.getMessage());
             throw e; 
         } finally {
+            invalidarCache(idEmpresa);
             if (stmt != null) stmt.close();
             if (con != null) con.close();
         }
@@ -56,7 +65,7 @@ public class TecnicoDAO {
     
     //atualizar tecnico
     public void atualizar(Tecnico tecnico, String senha) throws SQLException {
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         if (con == null) throw new SQLException("Sem conexão.");
 
         // NOTA: Agora são 7 pontos de interrogação!
@@ -91,6 +100,7 @@ public class TecnicoDAO {
             // -------------------------------
 
             stmt.execute();
+            OrdemServicoDAO.invalidarCacheOS();
 
         } catch (SQLException e) {
             if (e.getMessage().contains("unq_usuario_login")) {
@@ -99,98 +109,112 @@ public class TecnicoDAO {
                 throw e; 
             }
         } finally {
+            if (tecnico.getEmpresa() != null) {
+                invalidarCache(tecnico.getEmpresa().getId());
+            } else {
+                CACHE_LISTA.limpar();
+            }
             // Feche a conexão se necessário
             if (con != null) con.close();
         }
     }
     
     //exclui um tecnico
+    //As 4 etapas rodam numa unica transacao: ou tudo e aplicado, ou nada.
     public void excluir(int idTecnico, int idEmpresa) throws SQLException {
-        con = Conexao.getConexao();
-        if (con == null) return;
-        
-        PreparedStatement stmt = null;
-        ResultSet rs = null;
-
         try {
-            // 1. VERIFICA SE TEM O.S. ATIVA (Aberto ou Aberta, Em Andamento)
-            // Usamos LIKE 'Abert%' para pegar tanto "Aberto" quanto "Aberta"
-            String sqlVerifica = "SELECT COUNT(*) FROM tbl_ordens_servico "
-                    + "WHERE id_tecnico = ? AND id_empresa = ? "
-                    + "AND (status LIKE 'Aberta' OR status = 'Em andamento')";
-            
-            stmt = con.prepareStatement(sqlVerifica);
-            stmt.setInt(1, idTecnico);
-            stmt.setInt(2, idEmpresa);
-            rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                int pendencias = rs.getInt(1);
-                if (pendencias > 0) {
-                    throw new SQLException("Este técnico possui " + pendencias + " O.S. ativas.\n"
-                            + "Transfira ou conclua as ordens antes de excluir.");
+            Transacao.executarSemRetorno(con -> {
+                // 1. TRAVA O TÉCNICO E BUSCA O ID DO USUÁRIO (Para apagar o login)
+                // O FOR UPDATE impede que outra tela atribua uma O.S. a ele enquanto excluímos
+                int idUsuario = 0;
+                String sqlBuscaUser = "SELECT id_usuario FROM tbl_tecnicos WHERE id = ? FOR UPDATE";
+                try (PreparedStatement stmt = con.prepareStatement(sqlBuscaUser)) {
+                    stmt.setInt(1, idTecnico);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            idUsuario = rs.getInt("id_usuario");
+                        }
+                    }
                 }
-            }
-            rs.close();
-            stmt.close();
-            
-            // 2. DESVINCULAR O.S. ANTIGAS (Concluídas/Canceladas)
-            // Precisamos setar o técnico como NULL nessas O.S. para o banco deixar apagar o técnico
-            String sqlDesvincular = "UPDATE tbl_ordens_servico SET id_tecnico = NULL WHERE id_tecnico = ?";
-            stmt = con.prepareStatement(sqlDesvincular);
-            stmt.setInt(1, idTecnico);
-            stmt.executeUpdate();
-            stmt.close();
-            
-            // 3. BUSCA O ID DO CONTATO (Para apagar o login)
-            String sqlBuscaUser = "SELECT id_usuario FROM tbl_tecnicos WHERE id = ?";
-            stmt = con.prepareStatement(sqlBuscaUser);
-            stmt.setInt(1, idTecnico);
-            rs = stmt.executeQuery();
-            
-            int idUsuario = 0;
-            if (rs.next()) {
-                idUsuario = rs.getInt("id_usuario");
-            }
-            rs.close();
-            stmt.close();
-            
-            // 4. EXCLUI O USUÁRIO DE LOGIN
-            if (idUsuario > 0) {
-                String sqlDelUser = "DELETE FROM tbl_usuarios WHERE id = ?";
-                stmt = con.prepareStatement(sqlDelUser);
-                stmt.setInt(1, idUsuario);
-                stmt.executeUpdate();
-            } else {
-                // Caso de segurança: se não achou usuário, tenta apagar só o técnico
-                String sqlDelTec = "DELETE FROM tbl_tecnicos WHERE id = ?";
-                stmt = con.prepareStatement(sqlDelTec);
-                stmt.setInt(1, idTecnico);
-                stmt.executeUpdate();
-            }
 
-            
-            
+                // 2. VERIFICA SE TEM O.S. ATIVA (Aberta ou Em Andamento)
+                try (PreparedStatement stmt = con.prepareStatement(SQL_OS_ATIVAS)) {
+                    stmt.setInt(1, idTecnico);
+                    stmt.setInt(2, idEmpresa);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            int pendencias = rs.getInt(1);
+                            if (pendencias > 0) {
+                                throw new SQLException("Este técnico possui " + pendencias + " O.S. ativas.\n"
+                                        + "Transfira ou conclua as ordens antes de excluir.");
+                            }
+                        }
+                    }
+                }
+
+                // 3. DESVINCULAR O.S. ANTIGAS (Concluídas/Canceladas)
+                // Precisamos setar o técnico como NULL nessas O.S. para o banco deixar apagar o técnico
+                String sqlDesvincular = "UPDATE tbl_ordens_servico SET id_tecnico = NULL WHERE id_tecnico = ?";
+                try (PreparedStatement stmt = con.prepareStatement(sqlDesvincular)) {
+                    stmt.setInt(1, idTecnico);
+                    stmt.executeUpdate();
+                }
+
+                // 4. EXCLUI O USUÁRIO DE LOGIN (o técnico cai junto pelo ON DELETE CASCADE)
+                if (idUsuario > 0) {
+                    try (PreparedStatement stmt = con.prepareStatement("DELETE FROM tbl_usuarios WHERE id = ?")) {
+                        stmt.setInt(1, idUsuario);
+                        stmt.executeUpdate();
+                    }
+                } else {
+                    // Caso de segurança: se não achou usuário, tenta apagar só o técnico
+                    try (PreparedStatement stmt = con.prepareStatement("DELETE FROM tbl_tecnicos WHERE id = ?")) {
+                        stmt.setInt(1, idTecnico);
+                        stmt.executeUpdate();
+                    }
+                }
+            });
+            //as O.S. antigas dele ficaram sem tecnico
+            OrdemServicoDAO.invalidarCacheOS();
         } catch (SQLException e){
             System.out.println("ERRO ao deletar tecnico -> " + e.getMessage());
             throw e; // Repassa o erro para a tela
-        } finally{
-            if (rs != null) rs.close();
-            if (stmt != null) stmt.close();
-            if (con != null) con.close();
+        } finally {
+            invalidarCache(idEmpresa);
         }
     }
     
     
     //Listar todos os tecnicos de uma empresa especifica
+    //(do cache quando possivel). A lista devolvida nao pode ser alterada.
     public List<Tecnico> listarTodos(int idEmpresa) throws SQLException{
-
-
-        con = Conexao.getConexao();
+        try {
+            return CACHE_LISTA.getOuCarregar(idEmpresa, this::consultarTodos);
+        } catch (SQLException e) {
+            //erro nao vai para o cache: a proxima chamada tenta de novo
+            System.out.println("ERRO ao listar técnicos -> " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    public static CacheTTL.Estatisticas getEstatisticasCache() {
+        return CACHE_LISTA.getEstatisticas();
+    }
+    
+    static void invalidarCache(int idEmpresa) {
+        CACHE_LISTA.invalidar(idEmpresa);
+    }
+    
+    static void limparCache() {
+        CACHE_LISTA.limpar();
+    }
+    
+    private List<Tecnico> consultarTodos(int idEmpresa) throws SQLException{
+        Connection con = Conexao.getConexao();
 
         if (con == null) {
             System.out.println("ERRO DAO: Conexão com o banco nula ao tentar listar técnicos.");
-            return new ArrayList<>();
+            throw new SQLException("Sem conexão com o banco.");
         }
 
         String sql = """
@@ -228,15 +252,13 @@ public class TecnicoDAO {
                 tecnicos.add(tecnico);
             }
 
-        } catch (SQLException e) {
-            System.out.println("ERRO ao listar técnicos -> " + e.getMessage());
         } finally {
             if (rs != null) rs.close();
             if (stmt != null) stmt.close();
-            if (con != null) con.close();
+            con.close();
         }
 
-        return tecnicos;
+        return List.copyOf(tecnicos);
     }
     
     
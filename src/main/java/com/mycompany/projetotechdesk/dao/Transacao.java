@@ -0,0 +1,90 @@
+package com.mycompany.projetotechdesk.dao;
+
+import com.mycompany.projetotechdesk.database.Conexao;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Unidade de trabalho: roda varios comandos numa unica conexao do pool
+ * com um so COMMIT. Se o trabalho lancar excecao, faz ROLLBACK de tudo.
+ *
+ * Uso:
+ *   Transacao.executarSemRetorno(con -> { ...varios prepareStatement... });
+ *   int id = Transacao.executar(con -> { ...; return id; });
+ *
+ * @author carlo
+ */
+public class Transacao {
+
+    @FunctionalInterface
+    public interface Trabalho<T> {
+        T executar(Connection con) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface TrabalhoSemRetorno {
+        void executar(Connection con) throws SQLException;
+    }
+
+    //READ COMMITTED (padrao do PostgreSQL)
+    public static <T> T executar(Trabalho<T> trabalho) throws SQLException {
+        return executar(Connection.TRANSACTION_READ_COMMITTED, false, trabalho);
+    }
+
+    public static <T> T executar(int isolamento, Trabalho<T> trabalho) throws SQLException {
+        return executar(isolamento, false, trabalho);
+    }
+
+    //nome proprio (e nao sobrecarga): lambda sem return nao fica ambigua com o executar generico
+    public static void executarSemRetorno(TrabalhoSemRetorno trabalho) throws SQLException {
+        executarSemRetorno(Connection.TRANSACTION_READ_COMMITTED, trabalho);
+    }
+
+    public static void executarSemRetorno(int isolamento, TrabalhoSemRetorno trabalho) throws SQLException {
+        executar(isolamento, false, con -> {
+            trabalho.executar(con);
+            return null;
+        });
+    }
+
+    //transacao READ ONLY: varias leituras enxergando o mesmo snapshot (use REPEATABLE READ)
+    public static <T> T executarLeitura(int isolamento, Trabalho<T> trabalho) throws SQLException {
+        return executar(isolamento, true, trabalho);
+    }
+
+    private static <T> T executar(int isolamento, boolean somenteLeitura, Trabalho<T> trabalho) throws SQLException {
+        Connection con = Conexao.getConexao();
+        if (con == null) throw new SQLException("Sem conexão com o banco.");
+
+        try {
+            if (con.getTransactionIsolation() != isolamento) {
+                con.setTransactionIsolation(isolamento);
+            }
+            if (somenteLeitura) {
+                con.setReadOnly(true);
+            }
+            con.setAutoCommit(false);
+
+            T resultado = trabalho.executar(con);
+
+            con.commit();
+            return resultado;
+
+        } catch (SQLException | RuntimeException e) {
+            desfazer(con, e);
+            throw e;
+        } finally {
+            //o pool restaura autocommit/isolamento/read only na devolucao
+            con.close();
+        }
+    }
+
+    private static void desfazer(Connection con, Exception causa) {
+        try {
+            con.rollback();
+        } catch (SQLException e) {
+            causa.addSuppressed(e);
+            System.out.println("ERRO ao fazer rollback -> " + e.getMessage());
+        }
+    }
+}
@@ -20,11 +20,8 @@ import java.sql.SQLException;
  */
 public class UsuarioDAO {
     
-    private Connection con;
-    
-    
     public Usuario validarLogin(String email, String senha) {
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         
         if (con == null) {
             System.out.println("ERRO DAO: Conexao nula ao tentar login.");
@@ -116,7 +113,7 @@ public class UsuarioDAO {
     
     public boolean registrarNovaEmpresaEUsuario(Empresa empresa, Usuario admin){
         
-        con = Conexao.getConexao();
+        Connection con = Conexao.getConexao();
         
         if (con == null){
             System.out.println("ERRO DAO: Conexao nula ao registrar empresa.");
@@ -5,7 +5,6 @@
 package com.mycompany.projetotechdesk.database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
@@ -13,24 +12,16 @@ import java.sql.SQLException;
  * @author carlo
  */
 public class Conexao {
-    private static final String URL = "jdbc:postgresql://localhost:5432/TechDesk"; 
-    private static final String USUARIO = "postgres";
-    private static final String SENHA = "root";
     private static final String DRIVER = "org.postgresql.Driver";
-    
-    
-    private static Connection conexao = null;
-    
-    public static Connection getConexao(){
-        
-        try{
-            if (conexao == null || conexao.isClosed()){
-            Class.forName(DRIVER);
 
-            conexao = DriverManager.getConnection(URL, USUARIO, SENHA);
 
-                System.out.println("Conexao com o banco bem sucedida!");
-            }
+    private static volatile PoolConexoes pool = null;
+
+    //empresta uma conexao do pool. O close() devolve ela ao pool.
+    public static Connection getConexao(){
+
+        try{
+            return getPool().emprestar();
         }catch (ClassNotFoundException e){
             System.out.println("ERRO driver -> " + e.getMessage());
             e.printStackTrace();
@@ -41,6 +32,48 @@ public class Conexao {
         e.printStackTrace();
         return null;
         }
-        return conexao;
+    }
+
+    //ativas, ociosas, aguardando, latencia de emprestimo e acertos do cache de statements
+    public static EstatisticasPool getEstatisticas(){
+        PoolConexoes atual = pool;
+        if (atual == null) {
+            return new EstatisticasPool(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        }
+        return atual.getEstatisticas();
+    }
+
+    //conexao propria, fora do pool, para quem a segura por muito tempo (LISTEN).
+    //Quem abre e responsavel por fechar.
+    public static Connection abrirConexaoDedicada() throws SQLException {
+        try {
+            return getPool().abrirDedicada();
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("Driver nao encontrado: " + e.getMessage(), e);
+        }
+    }
+
+    public static synchronized void encerrar(){
+        if (pool != null) {
+            pool.encerrar();
+            pool = null;
+        }
+    }
+
+    private static PoolConexoes getPool() throws ClassNotFoundException {
+        PoolConexoes atual = pool;
+        if (atual != null) return atual;
+
+        synchronized (Conexao.class) {
+            if (pool == null) {
+                Class.forName(DRIVER);
+
+                pool = new PoolConexoes(ConfiguracaoBanco.carregar());
+                Runtime.getRuntime().addShutdownHook(new Thread(Conexao::encerrar, "techdesk-pool-shutdown"));
+
+                System.out.println("Pool de conexoes iniciado!");
+            }
+            return pool;
+        }
     }
 }
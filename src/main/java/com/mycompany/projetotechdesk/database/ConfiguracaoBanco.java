@@ -0,0 +1,129 @@
+package com.mycompany.projetotechdesk.database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Configuracao do banco e do pool, lida do database.properties.
+ *
+ * Ordem de carga: arquivo padrao do classpath, depois o arquivo externo
+ * (pasta atual ou -Dtechdesk.db.config), que sobrescreve as chaves que tiver.
+ *
+ * @author carlo
+ */
+public class ConfiguracaoBanco {
+
+    private static final String ARQUIVO = "database.properties";
+    private static final String PROPRIEDADE_CAMINHO = "techdesk.db.config";
+    private static final String PREFIXO_DRIVER = "pgjdbc.";
+
+    private final Properties props;
+
+    private ConfiguracaoBanco(Properties props) {
+        this.props = props;
+    }
+
+    public static ConfiguracaoBanco carregar() {
+        Properties props = new Properties();
+
+        //1. padrao empacotado no jar
+        try (InputStream in = ConfiguracaoBanco.class.getClassLoader().getResourceAsStream(ARQUIVO)) {
+            if (in != null) props.load(in);
+        } catch (IOException e) {
+            System.out.println("ERRO ao ler " + ARQUIVO + " do classpath -> " + e.getMessage());
+        }
+
+        //2. arquivo externo (sobrescreve o padrao)
+        String caminho = System.getProperty(PROPRIEDADE_CAMINHO);
+        Path externo = caminho != null ? Paths.get(caminho) : Paths.get(ARQUIVO);
+        if (Files.isRegularFile(externo)) {
+            try (InputStream in = Files.newInputStream(externo)) {
+                props.load(in);
+                System.out.println("Configuracao do banco carregada de " + externo.toAbsolutePath());
+            } catch (IOException e) {
+                System.out.println("ERRO ao ler " + externo + " -> " + e.getMessage());
+            }
+        }
+
+        return new ConfiguracaoBanco(props);
+    }
+
+    public String getUrl() {
+        return props.getProperty("db.url", "jdbc:postgresql://localhost:5432/TechDesk");
+    }
+
+    public String getUsuario() {
+        return props.getProperty("db.usuario", "postgres");
+    }
+
+    public String getSenha() {
+        return props.getProperty("db.senha", "");
+    }
+
+    public int getTamanhoMaximo() {
+        return Math.max(1, getInt("pool.tamanhoMaximo", 10));
+    }
+
+    public long getTimeoutEmprestimoMs() {
+        return getLong("pool.timeoutEmprestimoMs", 30_000);
+    }
+
+    public long getTempoOciosoMaxMs() {
+        return getLong("pool.tempoOciosoMaxMs", 600_000);
+    }
+
+    public long getTempoVidaMaxMs() {
+        return getLong("pool.tempoVidaMaxMs", 1_800_000);
+    }
+
+    public long getValidarAposOciosoMs() {
+        return getLong("pool.validarAposOciosoMs", 500);
+    }
+
+    public int getTimeoutValidacaoSeg() {
+        return getInt("pool.timeoutValidacaoSeg", 5);
+    }
+
+    //quantos PreparedStatement cada conexao fisica guarda para reuso (0 desliga)
+    public int getTamanhoCacheStatements() {
+        return Math.max(0, getInt("pool.cacheStatements", 64));
+    }
+
+    //meses de auditoria mantidos no banco; 0 guarda tudo
+    public int getRetencaoAuditoriaMeses() {
+        return Math.max(0, getInt("auditoria.retencaoMeses", 0));
+    }
+
+    //propriedades repassadas ao driver no DriverManager.getConnection.
+    //Toda chave "pgjdbc.X" vira a propriedade X do pgjdbc (ex.: pgjdbc.prepareThreshold)
+    public Properties getPropriedadesDriver() {
+        Properties driver = new Properties();
+        for (String chave : props.stringPropertyNames()) {
+            if (chave.startsWith(PREFIXO_DRIVER)) {
+                driver.setProperty(chave.substring(PREFIXO_DRIVER.length()), props.getProperty(chave).trim());
+            }
+        }
+        driver.setProperty("user", getUsuario());
+        driver.setProperty("password", getSenha());
+        return driver;
+    }
+
+    private int getInt(String chave, int padrao) {
+        return (int) getLong(chave, padrao);
+    }
+
+    private long getLong(String chave, long padrao) {
+        String valor = props.getProperty(chave);
+        if (valor == null || valor.isBlank()) return padrao;
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            System.out.println("ERRO valor invalido para " + chave + ": " + valor + " (usando " + padrao + ")");
+            return padrao;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.mycompany.projetotechdesk.database;
+
+/**
+ * Retrato do pool de conexoes num instante.
+ *
+ * @author carlo
+ */
+public record EstatisticasPool(
+        int ativas,
+        int ociosas,
+        int aguardando,
+        int tamanhoMaximo,
+        long totalEmprestimos,
+        long timeoutsEmprestimo,
+        double latenciaMediaEmprestimoMs,
+        double latenciaMaximaEmprestimoMs,
+        long acertosCacheStatement,
+        long falhasCacheStatement) {
+
+    //fracao dos prepareStatement atendidos pelo cache (0 a 1)
+    public double taxaAcertoCacheStatement() {
+        long total = acertosCacheStatement + falhasCacheStatement;
+        return total == 0 ? 0 : acertosCacheStatement / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pool[ativas=%d, ociosas=%d, aguardando=%d, max=%d, emprestimos=%d, timeouts=%d, "
+                + "latencia media=%.2fms, latencia max=%.2fms, cache statements=%d/%d (%.1f%%)]",
+                ativas, ociosas, aguardando, tamanhoMaximo, totalEmprestimos, timeoutsEmprestimo,
+                latenciaMediaEmprestimoMs, latenciaMaximaEmprestimoMs,
+                acertosCacheStatement, acertosCacheStatement + falhasCacheStatement,
+                taxaAcertoCacheStatement() * 100);
+    }
+}
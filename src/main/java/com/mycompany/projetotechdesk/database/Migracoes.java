@@ -0,0 +1,164 @@
+package com.mycompany.projetotechdesk.database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Aplica no banco, na inicializacao, os scripts de src/main/resources/db/migracoes
+ * que ainda nao rodaram.
+ *
+ * Cada script tem uma versao (o numero do prefixo V###) e roda uma unica vez,
+ * na sua propria transacao. A tabela tbl_migracoes guarda o que ja foi
+ * aplicado e o checksum do arquivo: se um script ja aplicado for editado, a
+ * inicializacao avisa em vez de seguir com um banco diferente do codigo.
+ * Mudancas novas de esquema entram como um script novo no fim de SCRIPTS.
+ *
+ * @author carlo
+ */
+public class Migracoes {
+
+    private static final String PASTA = "/db/migracoes/";
+
+    //em ordem de aplicacao; nunca renomear nem editar um que ja foi para producao
+    private static final String[] SCRIPTS = {
+        "V001__indices_ordens_servico.sql",
+        "V002__indices_cadastros.sql",
+        "V003__faturamento_mensal.sql",
+        "V004__particionar_ordens_servico.sql",
+        "V005__auditoria.sql",
+        "V006__privilegios.sql",
+        "V007__notifica_cadastros.sql",
+    };
+
+    //pg_advisory_lock: duas instancias subindo juntas nao aplicam o mesmo script
+    private static final long CHAVE_TRAVA = 0x7465636864657369L;
+
+    //aplica o que falta e devolve quantos scripts rodaram
+    public static int aplicarPendentes() throws SQLException {
+        Connection con = Conexao.getConexao();
+        if (con == null) throw new SQLException("Sem conexão com o banco.");
+
+        try (con) {
+            try (Statement stmt = con.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS tbl_migracoes ("
+                        + "versao INT PRIMARY KEY, "
+                        + "script VARCHAR(200) NOT NULL, "
+                        + "checksum CHAR(64) NOT NULL, "
+                        + "aplicada_em TIMESTAMP NOT NULL DEFAULT now(), "
+                        + "duracao_ms INT NOT NULL)");
+                stmt.execute("SELECT pg_advisory_lock(" + CHAVE_TRAVA + ")");
+            }
+
+            try {
+                Map<Integer, String> aplicadas = carregarAplicadas(con);
+                int aplicadasAgora = 0;
+
+                for (String script : SCRIPTS) {
+                    int versao = versao(script);
+                    String sql = ler(script);
+                    String checksum = checksum(sql);
+
+                    String anterior = aplicadas.get(versao);
+                    if (anterior != null) {
+                        if (!anterior.equals(checksum)) {
+                            throw new SQLException("Migração " + script + " foi alterada depois de aplicada "
+                                    + "(checksum " + anterior + " no banco, " + checksum + " no arquivo).");
+                        }
+                        continue;
+                    }
+
+                    aplicar(con, versao, script, sql, checksum);
+                    aplicadasAgora++;
+                }
+                return aplicadasAgora;
+
+            } finally {
+                try (Statement stmt = con.createStatement()) {
+                    stmt.execute("SELECT pg_advisory_unlock(" + CHAVE_TRAVA + ")");
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("ERRO, ao aplicar migracoes -> " + e.getMessage());
+            throw e;
+        }
+    }
+
+    private static Map<Integer, String> carregarAplicadas(Connection con) throws SQLException {
+        Map<Integer, String> aplicadas = new HashMap<>();
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT versao, checksum FROM tbl_migracoes")) {
+            while (rs.next()) {
+                aplicadas.put(rs.getInt("versao"), rs.getString("checksum"));
+            }
+        }
+        return aplicadas;
+    }
+
+    private static void aplicar(Connection con, int versao, String script, String sql, String checksum) throws SQLException {
+        long inicio = System.nanoTime();
+        con.setAutoCommit(false);
+        try {
+            //o pgjdbc aceita varios comandos separados por ; num execute sem parametros
+            try (Statement stmt = con.createStatement()) {
+                stmt.execute(sql);
+            }
+            int duracaoMs = (int) ((System.nanoTime() - inicio) / 1_000_000);
+
+            try (PreparedStatement stmt = con.prepareStatement(
+                    "INSERT INTO tbl_migracoes (versao, script, checksum, duracao_ms) VALUES (?, ?, ?, ?)")) {
+                stmt.setInt(1, versao);
+                stmt.setString(2, script);
+                stmt.setString(3, checksum);
+                stmt.setInt(4, duracaoMs);
+                stmt.executeUpdate();
+            }
+            con.commit();
+            System.out.println("Migracao aplicada: " + script + " (" + duracaoMs + " ms)");
+
+        } catch (SQLException e) {
+            con.rollback();
+            throw new SQLException("Falha na migração " + script + ": " + e.getMessage(), e);
+        } finally {
+            con.setAutoCommit(true);
+        }
+    }
+
+    //"V012__descricao.sql" -> 12
+    private static int versao(String script) {
+        int fim = script.indexOf("__");
+        if (!script.startsWith("V") || fim < 2) {
+            throw new IllegalStateException("Nome de migração fora do padrão V###__descricao.sql: " + script);
+        }
+        return Integer.parseInt(script.substring(1, fim));
+    }
+
+    private static String ler(String script) throws SQLException {
+        try (InputStream in = Migracoes.class.getResourceAsStream(PASTA + script)) {
+            if (in == null) throw new SQLException("Migração não encontrada no classpath: " + PASTA + script);
+            //o checksum nao pode mudar so porque o git trocou o fim de linha
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new SQLException("Erro lendo a migração " + script + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String checksum(String sql) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(sql.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
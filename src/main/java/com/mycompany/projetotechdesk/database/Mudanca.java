@@ -0,0 +1,43 @@
+package com.mycompany.projetotechdesk.database;
+
+/**
+ * Aviso de mudanca enviado pelos triggers fn_notifica_mudanca
+ * (canal techdesk_mudancas), no formato "tabela|operacao|id|id_empresa".
+ *
+ * @author carlo
+ */
+public record Mudanca(String tabela, String operacao, int id, int idEmpresa) {
+
+    public static final String OS = "tbl_ordens_servico";
+    public static final String CLIENTES = "tbl_clientes";
+    public static final String TECNICOS = "tbl_tecnicos";
+
+    //tabela "*": avisos podem ter sido perdidos (reconexao), recarregue tudo
+    public static final String TODAS = "*";
+
+    public static Mudanca ressincronizar() {
+        return new Mudanca(TODAS, "RESYNC", 0, 0);
+    }
+
+    //null se o payload nao estiver no formato esperado
+    public static Mudanca de(String payload) {
+        if (payload == null) return null;
+
+        String[] partes = payload.split("\\|");
+        if (partes.length != 4) return null;
+
+        try {
+            return new Mudanca(partes[0], partes[1], Integer.parseInt(partes[2]), Integer.parseInt(partes[3]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public boolean isExclusao() {
+        return "DELETE".equals(operacao);
+    }
+
+    public boolean isRessincronizacao() {
+        return TODAS.equals(tabela);
+    }
+}
@@ -0,0 +1,128 @@
+package com.mycompany.projetotechdesk.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * Escuta o canal techdesk_mudancas (LISTEN) numa conexao dedicada, fora do
+ * pool, e repassa cada aviso aos ouvintes registrados.
+ *
+ * Os ouvintes sao chamados na thread do ouvinte, na ordem de registro:
+ * quem mexe em Swing deve usar SwingUtilities.invokeLater.
+ * Se a conexao cair, reconecta com espera crescente e publica
+ * Mudanca.ressincronizar(), ja que avisos podem ter se perdido.
+ *
+ * @author carlo
+ */
+public class OuvinteMudancas {
+
+    public static final String CANAL = "techdesk_mudancas";
+
+    //quanto tempo o getNotifications bloqueia antes de conferir se deve parar
+    private static final int ESPERA_AVISOS_MS = 5_000;
+    private static final long ESPERA_RECONEXAO_MAX_MS = 30_000;
+
+    private static final OuvinteMudancas INSTANCIA = new OuvinteMudancas();
+
+    private final List<Consumer<Mudanca>> ouvintes = new CopyOnWriteArrayList<>();
+    //a thread que deve estar escutando agora; cada thread so continua enquanto for ela.
+    //Assim um iniciar() logo depois do parar() nao ressuscita a thread antiga.
+    private volatile Thread thread;
+
+    private OuvinteMudancas() {
+    }
+
+    public static OuvinteMudancas getInstancia() {
+        return INSTANCIA;
+    }
+
+    public void adicionarOuvinte(Consumer<Mudanca> ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    public void removerOuvinte(Consumer<Mudanca> ouvinte) {
+        ouvintes.remove(ouvinte);
+    }
+
+    //idempotente: so a primeira chamada cria a thread
+    public synchronized void iniciar() {
+        if (thread != null) return;
+
+        Thread nova = new Thread(this::escutar, "techdesk-listen");
+        nova.setDaemon(true);
+        thread = nova;
+        nova.start();
+    }
+
+    public synchronized void parar() {
+        Thread atual = thread;
+        thread = null;
+        if (atual != null) {
+            atual.interrupt();
+        }
+    }
+
+    private boolean rodando() {
+        return thread == Thread.currentThread();
+    }
+
+    private void escutar() {
+        long espera = 1_000;
+        boolean reconexao = false;
+
+        while (rodando()) {
+            try (Connection con = Conexao.abrirConexaoDedicada()) {
+                try (Statement stmt = con.createStatement()) {
+                    stmt.execute("LISTEN " + CANAL);
+                }
+                PGConnection pg = con.unwrap(PGConnection.class);
+                System.out.println("Ouvindo mudancas no canal " + CANAL);
+
+                if (reconexao) {
+                    publicar(Mudanca.ressincronizar());
+                }
+                espera = 1_000;
+
+                while (rodando()) {
+                    PGNotification[] avisos = pg.getNotifications(ESPERA_AVISOS_MS);
+                    if (avisos == null) continue;
+
+                    for (PGNotification aviso : avisos) {
+                        Mudanca mudanca = Mudanca.de(aviso.getParameter());
+                        //parada no meio do lote: a thread nova e quem entrega daqui em diante
+                        if (mudanca != null && rodando()) {
+                            publicar(mudanca);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!rodando()) break;
+                System.out.println("ERRO no LISTEN " + CANAL + " -> " + e.getMessage());
+            }
+
+            reconexao = true;
+            try {
+                Thread.sleep(espera);
+            } catch (InterruptedException e) {
+                break;
+            }
+            espera = Math.min(espera * 2, ESPERA_RECONEXAO_MAX_MS);
+        }
+    }
+
+    private void publicar(Mudanca mudanca) {
+        for (Consumer<Mudanca> ouvinte : ouvintes) {
+            try {
+                ouvinte.accept(mudanca);
+            } catch (RuntimeException e) {
+                System.out.println("ERRO ao tratar mudanca " + mudanca + " -> " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package com.mycompany.projetotechdesk.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool limitado de conexoes JDBC.
+ *
+ * Cada emprestimo devolve um proxy da conexao fisica: o close() do proxy
+ * devolve a conexao ao pool em vez de fechar o socket, entao os DAOs
+ * continuam usando o padrao getConexao() / close() de sempre.
+ *
+ * Cada conexao fisica guarda tambem um cache LRU de PreparedStatement por
+ * texto SQL. Como o mesmo objeto e reaproveitado entre emprestimos, o pgjdbc
+ * chega no prepareThreshold e o PostgreSQL passa a reusar o plano.
+ *
+ * @author carlo
+ */
+public class PoolConexoes {
+
+    private final ConfiguracaoBanco config;
+    private final Semaphore vagas;
+
+    //LIFO: a conexao usada mais recentemente sai primeiro e as antigas envelhecem ate o zelador fechar
+    private final LinkedBlockingDeque<ConexaoFisica> ociosas = new LinkedBlockingDeque<>();
+
+    private final AtomicInteger ativas = new AtomicInteger();
+    private final AtomicInteger aguardando = new AtomicInteger();
+    private final LongAdder totalEmprestimos = new LongAdder();
+    private final LongAdder timeoutsEmprestimo = new LongAdder();
+    private final LongAdder nanosEmprestimo = new LongAdder();
+    private final AtomicLong maxNanosEmprestimo = new AtomicLong();
+    private final LongAdder acertosCacheStatement = new LongAdder();
+    private final LongAdder falhasCacheStatement = new LongAdder();
+
+    private final ScheduledExecutorService zelador;
+    private volatile boolean encerrado = false;
+
+    public PoolConexoes(ConfiguracaoBanco config) {
+        this.config = config;
+        this.vagas = new Semaphore(config.getTamanhoMaximo(), true);
+
+        this.zelador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "techdesk-pool-zelador");
+            t.setDaemon(true);
+            return t;
+        });
+        long intervalo = Math.max(1_000, Math.min(config.getTempoOciosoMaxMs(), 30_000));
+        zelador.scheduleWithFixedDelay(this::removerOciosas, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    //pega uma conexao livre (ou abre uma nova), esperando no maximo pool.timeoutEmprestimoMs
+    public Connection emprestar() throws SQLException {
+        if (encerrado) throw new SQLException("Pool de conexões encerrado.");
+
+        long inicio = System.nanoTime();
+        long timeout = config.getTimeoutEmprestimoMs();
+        boolean conseguiu;
+
+        aguardando.incrementAndGet();
+        try {
+            conseguiu = vagas.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexão do pool.", e);
+        } finally {
+            aguardando.decrementAndGet();
+        }
+
+        if (!conseguiu) {
+            timeoutsEmprestimo.increment();
+            throw new SQLTimeoutException("Nenhuma conexão livre em " + timeout + "ms. " + getEstatisticas());
+        }
+
+        try {
+            ConexaoFisica fisica = obterFisica();
+            ativas.incrementAndGet();
+            registrarLatencia(System.nanoTime() - inicio);
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new ConexaoEmprestada(fisica));
+        } catch (SQLException | RuntimeException e) {
+            vagas.release();
+            throw e;
+        }
+    }
+
+    public EstatisticasPool getEstatisticas() {
+        long total = totalEmprestimos.sum();
+        double media = total == 0 ? 0 : nanosEmprestimo.sum() / (double) total / 1_000_000.0;
+        return new EstatisticasPool(
+                ativas.get(),
+                ociosas.size(),
+                aguardando.get(),
+                config.getTamanhoMaximo(),
+                total,
+                timeoutsEmprestimo.sum(),
+                media,
+                maxNanosEmprestimo.get() / 1_000_000.0,
+                acertosCacheStatement.sum(),
+                falhasCacheStatement.sum());
+    }
+
+    //fecha as conexoes ociosas; as emprestadas sao fechadas quando voltarem
+    public void encerrar() {
+        encerrado = true;
+        zelador.shutdownNow();
+        ConexaoFisica c;
+        while ((c = ociosas.pollFirst()) != null) {
+            c.fechar();
+        }
+    }
+
+    //conexao fisica fora do pool (nao conta no limite nem e devolvida)
+    public Connection abrirDedicada() throws SQLException {
+        return DriverManager.getConnection(config.getUrl(), config.getPropriedadesDriver());
+    }
+
+    private ConexaoFisica obterFisica() throws SQLException {
+        ConexaoFisica c;
+        while ((c = ociosas.pollFirst()) != null) {
+            long agora = System.currentTimeMillis();
+
+            if (c.expirou(agora, config.getTempoVidaMaxMs())) {
+                c.fechar();
+                continue;
+            }
+
+            //so valida se ficou parada um tempo; conexao recem devolvida e confiavel
+            if (agora - c.ultimoUso > config.getValidarAposOciosoMs() && !c.valida(config.getTimeoutValidacaoSeg())) {
+                System.out.println("Pool: conexao invalida descartada.");
+                c.fechar();
+                continue;
+            }
+            return c;
+        }
+
+        return new ConexaoFisica(
+                DriverManager.getConnection(config.getUrl(), config.getPropriedadesDriver()),
+                config.getTamanhoCacheStatements());
+    }
+
+    private void devolver(ConexaoFisica c) {
+        try {
+            boolean reutilizar = !encerrado
+                    && !c.quebrada
+                    && !c.expirou(System.currentTimeMillis(), config.getTempoVidaMaxMs())
+                    && c.restaurarEstado();
+
+            if (reutilizar) {
+                c.ultimoUso = System.currentTimeMillis();
+                ociosas.offerFirst(c);
+            } else {
+                c.fechar();
+            }
+        } finally {
+            ativas.decrementAndGet();
+            vagas.release();
+        }
+    }
+
+    private void removerOciosas() {
+        long agora = System.currentTimeMillis();
+        for (ConexaoFisica c : ociosas) {
+            boolean velha = agora - c.ultimoUso > config.getTempoOciosoMaxMs()
+                    || c.expirou(agora, config.getTempoVidaMaxMs());
+
+            //remove() so devolve true se ninguem emprestou a conexao nesse meio tempo
+            if (velha && ociosas.remove(c)) {
+                c.fechar();
+            }
+        }
+    }
+
+    private void registrarLatencia(long nanos) {
+        totalEmprestimos.increment();
+        nanosEmprestimo.add(nanos);
+        maxNanosEmprestimo.accumulateAndGet(nanos, Math::max);
+    }
+
+    //erros de conexao (classe 08) e de shutdown do servidor (57P) invalidam a conexao fisica
+    private static boolean erroFatal(SQLException e) {
+        String estado = e.getSQLState();
+        return estado != null && (estado.startsWith("08") || estado.startsWith("57P"));
+    }
+
+
+    //conexao real com o banco, seus metadados de idade e o cache de statements
+    private static class ConexaoFisica {
+        final Connection conexao;
+        final long criadaEm;
+        final int isolamentoPadrao;
+        final int tamanhoCache;
+        final Map<String, StatementCacheado> cache;
+        volatile long ultimoUso;
+        volatile boolean quebrada = false;
+
+        ConexaoFisica(Connection conexao, int tamanhoCache) throws SQLException {
+            this.conexao = conexao;
+            this.criadaEm = System.currentTimeMillis();
+            this.ultimoUso = criadaEm;
+            this.isolamentoPadrao = conexao.getTransactionIsolation();
+            this.tamanhoCache = tamanhoCache;
+
+            //LinkedHashMap em ordem de acesso = LRU. So o dono do emprestimo mexe nele.
+            this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, StatementCacheado> maisAntigo) {
+                    if (size() <= ConexaoFisica.this.tamanhoCache) return false;
+                    maisAntigo.getValue().descartar();
+                    return true;
+                }
+            };
+        }
+
+        boolean expirou(long agora, long tempoVidaMax) {
+            return tempoVidaMax > 0 && agora - criadaEm > tempoVidaMax;
+        }
+
+        boolean valida(int timeoutSeg) {
+            try {
+                return conexao.isValid(timeoutSeg);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        //desfaz o que o ultimo usuario deixou pendurado na conexao
+        boolean restaurarEstado() {
+            try {
+                if (conexao.isClosed()) return false;
+                if (!conexao.getAutoCommit()) {
+                    conexao.rollback();
+                    conexao.setAutoCommit(true);
+                }
+                if (conexao.getTransactionIsolation() != isolamentoPadrao) {
+                    conexao.setTransactionIsolation(isolamentoPadrao);
+                }
+                if (conexao.isReadOnly()) {
+                    conexao.setReadOnly(false);
+                }
+                conexao.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                System.out.println("Pool: falha ao restaurar conexao -> " + e.getMessage());
+                return false;
+            }
+        }
+
+        void fechar() {
+            //o driver fecha os statements junto com a conexao
+            cache.clear();
+            try {
+                conexao.close();
+            } catch (SQLException e) {
+                System.out.println("Pool: erro ao fechar conexao -> " + e.getMessage());
+            }
+        }
+    }
+
+
+    //proxy entregue ao DAO; vale para um unico emprestimo
+    private class ConexaoEmprestada implements InvocationHandler {
+        private final ConexaoFisica fisica;
+        private final AtomicBoolean devolvida = new AtomicBoolean(false);
+        private final List<Statement> statements = new ArrayList<>();
+        private final List<StatementCacheado> cacheadosEmUso = new ArrayList<>();
+
+        ConexaoEmprestada(ConexaoFisica fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (devolvida.compareAndSet(false, true)) {
+                        fecharStatements();
+                        devolver(fisica);
+                    }
+                    return null;
+                case "isClosed":
+                    return devolvida.get() || fisica.conexao.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexaoPool[" + fisica.conexao + "]";
+                default:
+                    break;
+            }
+
+            if (devolvida.get()) {
+                throw new SQLException("Conexão já foi devolvida ao pool.");
+            }
+
+            //so o prepareStatement(String) simples entra no cache; variantes com flags vao direto ao driver
+            if (fisica.tamanhoCache > 0 && method.getName().equals("prepareStatement") && args.length == 1) {
+                return prepararCacheado((Connection) proxy, (String) args[0]);
+            }
+
+            try {
+                Object resultado = method.invoke(fisica.conexao, args);
+                if (resultado instanceof Statement s) {
+                    statements.add(s);
+                }
+                return resultado;
+            } catch (InvocationTargetException e) {
+                Throwable causa = e.getCause();
+                if (causa instanceof SQLException sql && erroFatal(sql)) {
+                    fisica.quebrada = true;
+                }
+                throw causa;
+            }
+        }
+
+        private PreparedStatement prepararCacheado(Connection proxy, String sql) throws SQLException {
+            StatementCacheado entrada = fisica.cache.get(sql);
+
+            if (entrada != null && !entrada.emUso && !entrada.fisico.isClosed()) {
+                acertosCacheStatement.increment();
+            } else {
+                falhasCacheStatement.increment();
+                PreparedStatement novo = prepararNoDriver(sql);
+
+                if (entrada != null && entrada.emUso) {
+                    //o mesmo SQL ja esta aberto neste emprestimo: entrega um statement avulso
+                    statements.add(novo);
+                    return novo;
+                }
+
+                entrada = new StatementCacheado(novo);
+                fisica.cache.put(sql, entrada);
+            }
+
+            entrada.emUso = true;
+            cacheadosEmUso.add(entrada);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new StatementEmprestado(entrada, proxy, this));
+        }
+
+        private PreparedStatement prepararNoDriver(String sql) throws SQLException {
+            try {
+                return fisica.conexao.prepareStatement(sql);
+            } catch (SQLException e) {
+                if (erroFatal(e)) fisica.quebrada = true;
+                throw e;
+            }
+        }
+
+        //statements esquecidos abertos pelo DAO nao podem sobreviver ao emprestimo
+        private void fecharStatements() {
+            for (StatementCacheado entrada : cacheadosEmUso) {
+                if (!entrada.liberar()) {
+                    fisica.quebrada = true;
+                }
+            }
+            cacheadosEmUso.clear();
+
+            for (Statement s : statements) {
+                try {
+                    s.close();
+                } catch (SQLException e) {
+                    fisica.quebrada = true;
+                }
+            }
+            statements.clear();
+        }
+    }
+
+
+    //PreparedStatement fisico guardado no cache de uma conexao
+    private static class StatementCacheado {
+        final PreparedStatement fisico;
+        boolean emUso = false;
+        boolean descartado = false;
+
+        StatementCacheado(PreparedStatement fisico) {
+            this.fisico = fisico;
+        }
+
+        //volta o statement ao estado "recem preparado" para o proximo uso
+        boolean liberar() {
+            if (!emUso) return true;
+            emUso = false;
+
+            if (descartado) {
+                fecharFisico();
+                return true;
+            }
+            try {
+                ResultSet rs = fisico.getResultSet();
+                if (rs != null) rs.close();
+                fisico.clearParameters();
+                fisico.clearBatch();
+                fisico.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                fecharFisico();
+                return false;
+            }
+        }
+
+        //saiu do cache (LRU): fecha agora ou quando o DAO terminar de usar
+        void descartar() {
+            descartado = true;
+            if (!emUso) fecharFisico();
+        }
+
+        private void fecharFisico() {
+            try {
+                fisico.close();
+            } catch (SQLException e) {
+                System.out.println("Pool: erro ao fechar statement -> " + e.getMessage());
+            }
+        }
+    }
+
+
+    //proxy do statement cacheado; o close() devolve o statement ao cache.
+    //Vale so enquanto o emprestimo que o criou nao for devolvido: depois disso o
+    //StatementCacheado pode estar com outro emprestimo, entao o proxy vira um statement fechado.
+    private static class StatementEmprestado implements InvocationHandler {
+        private final StatementCacheado entrada;
+        private final Connection conexao;
+        private final ConexaoEmprestada emprestimo;
+        private boolean fechado = false;
+
+        StatementEmprestado(StatementCacheado entrada, Connection conexao, ConexaoEmprestada emprestimo) {
+            this.entrada = entrada;
+            this.conexao = conexao;
+            this.emprestimo = emprestimo;
+        }
+
+        //fechado pelo DAO ou pela devolucao da conexao (que ja liberou o statement)
+        private boolean encerrado() {
+            return fechado || emprestimo.devolvida.get();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!encerrado()) {
+                        entrada.liberar();
+                    }
+                    fechado = true;
+                    return null;
+                case "isClosed":
+                    return encerrado() || entrada.fisico.isClosed();
+                case "getConnection":
+                    return conexao;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "StatementPool[" + entrada.fisico + "]";
+                default:
+                    break;
+            }
+
+            if (encerrado()) {
+                throw new SQLException("Statement já foi fechado.");
+            }
+
+            try {
+                return method.invoke(entrada.fisico, args);
+            } catch (InvocationTargetException e) {
+                Throwable causa = e.getCause();
+                if (causa instanceof SQLException sql && erroFatal(sql)) {
+                    emprestimo.fisica.quebrada = true;
+                }
+                throw causa;
+            }
+        }
+    }
+}
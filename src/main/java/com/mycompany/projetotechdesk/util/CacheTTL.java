@@ -0,0 +1,159 @@
+package com.mycompany.projetotechdesk.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cache simples em memoria com tempo de vida (TTL) por entrada e,
+ * opcionalmente, limite de tamanho (sai a entrada usada ha mais tempo).
+ *
+ * getOuCarregar faz read-through: se nao tem (ou expirou) chama o carregador
+ * e guarda o resultado. Um invalidar() que acontece enquanto o carregador
+ * ainda esta rodando impede que o valor antigo seja guardado.
+ *
+ * @author carlo
+ */
+public class CacheTTL<K, V> {
+
+    @FunctionalInterface
+    public interface Carregador<K, V, E extends Exception> {
+        V carregar(K chave) throws E;
+    }
+
+    private record Entrada<V>(V valor, long expiraEm) {
+    }
+
+    //contadores desde a criacao do cache
+    public record Estatisticas(long acertos, long falhas, long invalidacoes, int tamanho, int maxEntradas) {
+
+        //fracao dos get atendidos pelo cache (0 a 1)
+        public double taxaAcerto() {
+            long total = acertos + falhas;
+            return total == 0 ? 0 : acertos / (double) total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Cache[acertos=%d, falhas=%d (%.1f%%), invalidacoes=%d, tamanho=%d/%d]",
+                    acertos, falhas, taxaAcerto() * 100, invalidacoes, tamanho, maxEntradas);
+        }
+    }
+
+    private final long ttlMs;
+    private final int maxEntradas;
+
+    //LinkedHashMap em ordem de acesso = LRU. Todo acesso e sincronizado no proprio cache.
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+
+    //cada invalidacao recebe um numero; carga iniciada antes dele nao pode ser guardada.
+    //So interessa enquanto alguma carga iniciada antes dela estiver rodando: fora isso sai do mapa.
+    private long relogio = 0;
+    private final Map<K, Long> invalidadoEm = new HashMap<>();
+    private long limpoEm = 0;
+
+    //relogio no inicio de cada carga em andamento -> quantas comecaram nesse numero
+    private final TreeMap<Long, Integer> cargasEmAndamento = new TreeMap<>();
+
+    private long acertos = 0;
+    private long falhas = 0;
+    private long invalidacoes = 0;
+
+    public CacheTTL(long ttlMs) {
+        this(ttlMs, Integer.MAX_VALUE);
+    }
+
+    public CacheTTL(long ttlMs, int maxEntradas) {
+        this.ttlMs = ttlMs;
+        this.maxEntradas = maxEntradas;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> maisAntiga) {
+                return size() > CacheTTL.this.maxEntradas;
+            }
+        };
+    }
+
+    public synchronized V get(K chave) {
+        Entrada<V> entrada = entradas.get(chave);
+        if (entrada == null) {
+            falhas++;
+            return null;
+        }
+
+        if (System.currentTimeMillis() > entrada.expiraEm()) {
+            entradas.remove(chave);
+            falhas++;
+            return null;
+        }
+        acertos++;
+        return entrada.valor();
+    }
+
+    //o carregador roda fora do lock: uma consulta lenta nao trava quem so quer ler
+    public <E extends Exception> V getOuCarregar(K chave, Carregador<K, V, E> carregador) throws E {
+        long inicio;
+        synchronized (this) {
+            V valor = get(chave);
+            if (valor != null) return valor;
+            inicio = relogio;
+            cargasEmAndamento.merge(inicio, 1, Integer::sum);
+        }
+
+        V valor = null;
+        try {
+            valor = carregador.carregar(chave);
+            return valor;
+        } finally {
+            terminarCarga(chave, valor, inicio);
+        }
+    }
+
+    public synchronized void put(K chave, V valor) {
+        if (valor == null) return;
+        entradas.put(chave, new Entrada<>(valor, System.currentTimeMillis() + ttlMs));
+    }
+
+    public synchronized void invalidar(K chave) {
+        ++relogio;
+        //sem carga em andamento ninguem precisa saber desta invalidacao
+        if (!cargasEmAndamento.isEmpty()) {
+            invalidadoEm.put(chave, relogio);
+        }
+        entradas.remove(chave);
+        invalidacoes++;
+    }
+
+    public synchronized void limpar() {
+        limpoEm = ++relogio;
+        invalidadoEm.clear();
+        entradas.clear();
+        invalidacoes++;
+    }
+
+    public synchronized Estatisticas getEstatisticas() {
+        return new Estatisticas(acertos, falhas, invalidacoes, entradas.size(), maxEntradas);
+    }
+
+    public synchronized int tamanho() {
+        return entradas.size();
+    }
+
+    //guarda o valor (se nenhuma invalidacao aconteceu durante a carga) e
+    //esquece as invalidacoes que nenhuma carga em andamento pode ter perdido
+    private synchronized void terminarCarga(K chave, V valor, long inicio) {
+        boolean invalidado = limpoEm > inicio || invalidadoEm.getOrDefault(chave, 0L) > inicio;
+        if (valor != null && !invalidado) {
+            put(chave, valor);
+        }
+
+        cargasEmAndamento.merge(inicio, -1, (atual, menos) -> atual + menos == 0 ? null : atual + menos);
+        if (cargasEmAndamento.isEmpty()) {
+            invalidadoEm.clear();
+        } else if (!invalidadoEm.isEmpty()) {
+            long maisAntiga = cargasEmAndamento.firstKey();
+            invalidadoEm.values().removeIf(numero -> numero <= maisAntiga);
+        }
+    }
+}
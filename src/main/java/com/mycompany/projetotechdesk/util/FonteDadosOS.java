@@ -0,0 +1,115 @@
+package com.mycompany.projetotechdesk.util;
+
+import com.mycompany.projetotechdesk.Model.OrdemServico;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+
+/**
+ * Fonte de dados do Jasper a partir de O.S. ja carregadas pelo DAO, para o
+ * relatorio nao rodar a propria consulta numa conexao.
+ *
+ * Vem de uma lista em memoria (ex.: ModeloTabelaOS.instantaneo()) ou do
+ * OrdemServicoDAO.streamOS, lido linha a linha durante o preenchimento.
+ * Feche depois do preenchimento: no caso do stream e o que devolve a conexao.
+ *
+ * Os campos tem os nomes das colunas da vw_detalhes_os / consulta do
+ * relatorioOS (id, descricao_problema, status, data_entrada, data_saida,
+ * valor_mao_obra, valor_pecas, valor_total, nome_cliente, nome_tecnico) e o
+ * valor e convertido para a classe declarada no campo (BigDecimal, Double,
+ * java.sql.Date...).
+ *
+ * @author carlo
+ */
+public class FonteDadosOS implements JRDataSource, AutoCloseable {
+
+    private final Iterator<OrdemServico> linhas;
+    private final Runnable aoFechar;
+    private OrdemServico atual;
+    private boolean fechada = false;
+
+    private FonteDadosOS(Iterator<OrdemServico> linhas, Runnable aoFechar) {
+        this.linhas = linhas;
+        this.aoFechar = aoFechar;
+    }
+
+    //O.S. ja em memoria; a colecao nao deve mudar durante o preenchimento
+    public static FonteDadosOS daLista(Collection<OrdemServico> ordens) {
+        return new FonteDadosOS(ordens.iterator(), null);
+    }
+
+    //cursor do streamOS: a memoria fica constante e o close() fecha o stream (e a conexao)
+    public static FonteDadosOS doStream(Stream<OrdemServico> ordens) {
+        return new FonteDadosOS(ordens.iterator(), ordens::close);
+    }
+
+    @Override
+    public boolean next() throws JRException {
+        if (fechada) return false;
+        try {
+            if (linhas.hasNext()) {
+                atual = linhas.next();
+                return true;
+            }
+        } catch (RuntimeException e) {
+            //o streamOS embrulha o SQLException do cursor
+            if (e.getCause() instanceof SQLException sql) {
+                throw new JRException("Erro lendo as O.S. do banco: " + sql.getMessage(), sql);
+            }
+            throw e;
+        }
+        //acabou: ja solta o cursor, sem esperar o close()
+        atual = null;
+        close();
+        return false;
+    }
+
+    @Override
+    public Object getFieldValue(JRField campo) throws JRException {
+        OrdemServico os = atual;
+        Class<?> tipo = campo.getValueClass();
+
+        return switch (campo.getName()) {
+            case "id", "id_os" -> os.getId();
+            case "descricao_problema" -> os.getDescricaoProblema();
+            case "status" -> os.getStatus();
+            case "data_entrada" -> data(os.getDataEntrada(), tipo);
+            case "data_saida" -> data(os.getDataSaida(), tipo);
+            case "valor_mao_obra" -> valor(os.getValorMaoObra(), tipo);
+            case "valor_pecas" -> valor(os.getValorPecas(), tipo);
+            case "valor_total" -> valor(os.getValorTotal(), tipo);
+            case "nome_cliente" -> os.getCliente() != null ? os.getCliente().getNome() : null;
+            case "nome_tecnico" -> os.getTecnico() != null ? os.getTecnico().getNome() : null;
+            default -> throw new JRException("Campo sem correspondente na O.S.: " + campo.getName());
+        };
+    }
+
+    @Override
+    public void close() {
+        if (fechada) return;
+        fechada = true;
+        if (aoFechar != null) aoFechar.run();
+    }
+
+    //o Jasper faz cast direto para a classe do campo; NUMERIC chega como BigDecimal do banco
+    private static Object valor(double valor, Class<?> tipo) {
+        if (tipo == Double.class) return valor;
+        if (tipo == Float.class) return (float) valor;
+        return BigDecimal.valueOf(valor).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static Object data(Date data, Class<?> tipo) {
+        if (data == null) return null;
+        if (tipo == Timestamp.class) return new Timestamp(data.getTime());
+        if (tipo == java.sql.Date.class) return new java.sql.Date(data.getTime());
+        return data;
+    }
+}
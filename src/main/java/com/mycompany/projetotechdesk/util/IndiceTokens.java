@@ -0,0 +1,253 @@
+package com.mycompany.projetotechdesk.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Indice invertido em memoria: palavra -> linhas onde ela aparece.
+ *
+ * A busca quebra a consulta em palavras e cada uma casa por prefixo
+ * ("sil" acha "Silva"); as linhas precisam ter todas elas (AND).
+ * Acentos e maiusculas sao ignorados dos dois lados.
+ *
+ * Cada palavra guarda suas linhas num int[] ordenado (a maioria aparece
+ * em poucas linhas); o BitSet so e montado na hora da busca.
+ * Nao e thread-safe: use so na EDT, junto do modelo da tabela.
+ *
+ * @author carlo
+ */
+public class IndiceTokens {
+
+    private static final String[] NENHUM = new String[0];
+
+    //latim (ate U+024F) ja em minusculas e sem acento: "Ã" -> 'a', "Ç" -> 'c'
+    private static final char[] DOBRA = new char[0x250];
+
+    static {
+        for (char c = 0; c < DOBRA.length; c++) {
+            String decomposto = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            DOBRA[c] = Character.toLowerCase(decomposto.charAt(0));
+        }
+    }
+
+    //linhas de uma palavra, em ordem crescente
+    private static final class Linhas {
+        final String token;
+        int[] linhas = new int[2];
+        int tamanho = 0;
+
+        Linhas(String token) {
+            this.token = token;
+        }
+
+        void adicionar(int linha) {
+            //quase sempre a linha nova e a maior (indexacao em ordem)
+            if (tamanho > 0 && linhas[tamanho - 1] >= linha) {
+                int pos = Arrays.binarySearch(linhas, 0, tamanho, linha);
+                if (pos >= 0) return;
+                inserir(-pos - 1, linha);
+                return;
+            }
+            inserir(tamanho, linha);
+        }
+
+        private void inserir(int pos, int linha) {
+            if (tamanho == linhas.length) {
+                linhas = Arrays.copyOf(linhas, tamanho * 2);
+            }
+            System.arraycopy(linhas, pos, linhas, pos + 1, tamanho - pos);
+            linhas[pos] = linha;
+            tamanho++;
+        }
+
+        void remover(int linha) {
+            int pos = Arrays.binarySearch(linhas, 0, tamanho, linha);
+            if (pos < 0) return;
+            System.arraycopy(linhas, pos + 1, linhas, pos, tamanho - pos - 1);
+            tamanho--;
+        }
+    }
+
+    private final Map<String, Linhas> linhasPorToken = new HashMap<>();
+    //palavras em ordem, para achar as que comecam com um prefixo; refeito so quando surge palavra nova
+    private Linhas[] ordenadas = null;
+    private String[][] tokensPorLinha = new String[64][];
+    private int tamanho = 0;
+
+    //indexa do zero as linhas 0..total-1
+    public void reconstruir(int total, IntFunction<String> textoDaLinha) {
+        linhasPorToken.clear();
+        ordenadas = null;
+        tokensPorLinha = new String[Math.max(64, total)][];
+        tamanho = 0;
+        acrescentar(total, textoDaLinha);
+    }
+
+    //linhas novas no fim (tamanho..total-1), como uma pagina carregada
+    public void acrescentar(int total, IntFunction<String> textoDaLinha) {
+        if (total > tokensPorLinha.length) {
+            tokensPorLinha = Arrays.copyOf(tokensPorLinha, Math.max(total, tokensPorLinha.length * 2));
+        }
+        for (int linha = tamanho; linha < total; linha++) {
+            indexar(linha, textoDaLinha.apply(linha));
+        }
+        tamanho = Math.max(tamanho, total);
+    }
+
+    //a linha mudou de conteudo mas continua na mesma posicao
+    public void atualizar(int linha, String texto) {
+        if (linha >= tamanho) return;
+        desindexar(linha);
+        indexar(linha, texto);
+    }
+
+    //linha nova no meio: as de baixo descem uma posicao
+    public void inserir(int linha, String texto) {
+        if (tamanho == tokensPorLinha.length) {
+            tokensPorLinha = Arrays.copyOf(tokensPorLinha, tamanho * 2);
+        }
+        if (linha < tamanho) {
+            deslocarLinhas(linha, 1);
+            System.arraycopy(tokensPorLinha, linha, tokensPorLinha, linha + 1, tamanho - linha);
+        }
+        tamanho++;
+        indexar(linha, texto);
+    }
+
+    //linha saiu: as de baixo sobem uma posicao
+    public void remover(int linha) {
+        if (linha >= tamanho) return;
+        desindexar(linha);
+        System.arraycopy(tokensPorLinha, linha + 1, tokensPorLinha, linha, tamanho - linha - 1);
+        tamanho--;
+        tokensPorLinha[tamanho] = null;
+        deslocarLinhas(linha + 1, -1);
+    }
+
+    //soma "delta" em toda linha >= aPartirDe; a ordem de cada lista se mantem
+    private void deslocarLinhas(int aPartirDe, int delta) {
+        for (Linhas linhas : linhasPorToken.values()) {
+            int pos = Arrays.binarySearch(linhas.linhas, 0, linhas.tamanho, aPartirDe);
+            if (pos < 0) pos = -pos - 1;
+            for (int i = pos; i < linhas.tamanho; i++) {
+                linhas.linhas[i] += delta;
+            }
+        }
+    }
+
+    //null quando a consulta nao tem palavras (sem filtro)
+    public BitSet buscar(String consulta) {
+        String[] termos = tokens(consulta);
+        if (termos.length == 0) return null;
+
+        //o termo mais longo costuma ser o mais seletivo: comeca por ele
+        Arrays.sort(termos, (a, b) -> b.length() - a.length());
+
+        if (ordenadas == null) {
+            ordenadas = linhasPorToken.values().toArray(new Linhas[0]);
+            Arrays.sort(ordenadas, (a, b) -> a.token.compareTo(b.token));
+        }
+
+        BitSet resultado = null;
+        for (String termo : termos) {
+            BitSet casadas = new BitSet(tamanho);
+            //as palavras com o prefixo ficam juntas a partir da primeira >= termo
+            for (int p = primeiraNaoMenor(termo); p < ordenadas.length && ordenadas[p].token.startsWith(termo); p++) {
+                Linhas linhas = ordenadas[p];
+                for (int i = 0; i < linhas.tamanho; i++) {
+                    casadas.set(linhas.linhas[i]);
+                }
+            }
+            if (resultado == null) {
+                resultado = casadas;
+            } else {
+                resultado.and(casadas);
+            }
+            if (resultado.isEmpty()) break;
+        }
+        return resultado;
+    }
+
+    private int primeiraNaoMenor(String termo) {
+        int baixo = 0;
+        int alto = ordenadas.length;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (ordenadas[meio].token.compareTo(termo) < 0) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    private void desindexar(int linha) {
+        for (String token : tokensPorLinha[linha]) {
+            Linhas linhas = linhasPorToken.get(token);
+            if (linhas == null) continue;
+            linhas.remover(linha);
+            if (linhas.tamanho == 0) {
+                linhasPorToken.remove(token);
+                ordenadas = null;
+            }
+        }
+    }
+
+    private void indexar(int linha, String texto) {
+        String[] tokens = tokens(texto);
+        for (int i = 0; i < tokens.length; i++) {
+            Linhas linhas = linhasPorToken.get(tokens[i]);
+            if (linhas == null) {
+                linhas = new Linhas(tokens[i]);
+                linhasPorToken.put(tokens[i], linhas);
+                ordenadas = null;
+            }
+            linhas.adicionar(linha);
+            //guarda a instancia do indice: a mesma palavra nao fica repetida na memoria
+            tokens[i] = linhas.token;
+        }
+        tokensPorLinha[linha] = tokens;
+    }
+
+    //palavras em minusculas, sem acento, sem repeticao
+    public static String[] tokens(String texto) {
+        if (texto == null || texto.isEmpty()) return NENHUM;
+
+        List<String> tokens = new ArrayList<>(8);
+        char[] palavra = new char[texto.length()];
+        int tamanho = 0;
+
+        for (int i = 0; i <= texto.length(); i++) {
+            char c = i < texto.length() ? texto.charAt(i) : ' ';
+
+            if (Character.isLetterOrDigit(c)) {
+                palavra[tamanho++] = dobrar(c);
+            } else if (tamanho > 0 && Character.getType(c) == Character.NON_SPACING_MARK) {
+                //acento separado da letra (texto em NFD): ignora
+            } else if (tamanho > 0) {
+                String token = new String(palavra, 0, tamanho);
+                if (!tokens.contains(token)) {
+                    tokens.add(token);
+                }
+                tamanho = 0;
+            }
+        }
+        return tokens.toArray(NENHUM);
+    }
+
+    private static char dobrar(char c) {
+        return c < DOBRA.length ? DOBRA[c] : Character.toLowerCase(c);
+    }
+}
@@ -0,0 +1,158 @@
+package com.mycompany.projetotechdesk.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+
+/**
+ * Modelos de relatorio (JasperReport) lidos do classpath, em /relatorios/,
+ * uma vez so e guardados em cache.
+ *
+ * Para cada nome procura nome.jasper e nome.jrxml: se o .jrxml existe e e mais
+ * novo que o .jasper (ou o .jasper nao existe), compila o .jrxml; senao carrega
+ * o .jasper pronto. A cada INTERVALO_VERIFICACAO_MS no maximo, o obter confere a
+ * data dos arquivos e recarrega se algum mudou (editar o modelo sem reiniciar).
+ *
+ * -Dtechdesk.relatorios.compilarJrxml=false desliga a compilacao (so .jasper).
+ *
+ * @author carlo
+ */
+public class RegistroRelatorios {
+
+    public static final String RELATORIO_OS = "relatorioOS";
+    public static final String RELATORIO_FATURAMENTO = "relatorioFaturamento";
+
+    private static final String PASTA = "/relatorios/";
+    private static final boolean COMPILAR_JRXML =
+            Boolean.parseBoolean(System.getProperty("techdesk.relatorios.compilarJrxml", "true"));
+    private static final long INTERVALO_VERIFICACAO_MS = 2_000;
+
+    //data dos dois arquivos de origem (0 = nao existe)
+    private record Versao(long jasper, long jrxml) {}
+
+    private static class Modelo {
+        final JasperReport relatorio;
+        final Versao versao;
+        volatile long verificadoEm;
+
+        Modelo(JasperReport relatorio, Versao versao) {
+            this.relatorio = relatorio;
+            this.versao = versao;
+            this.verificadoEm = System.currentTimeMillis();
+        }
+    }
+
+    //um futuro por nome: quem pede enquanto outro carrega espera o mesmo carregamento
+    private static final ConcurrentHashMap<String, CompletableFuture<Modelo>> CACHE = new ConcurrentHashMap<>();
+
+    //modelo pronto para preencher; a primeira chamada (ou a primeira depois de uma mudanca) carrega
+    public static JasperReport obter(String nome) throws JRException {
+        while (true) {
+            CompletableFuture<Modelo> futuro = CACHE.get(nome);
+            if (futuro == null) {
+                CompletableFuture<Modelo> novo = new CompletableFuture<>();
+                futuro = CACHE.putIfAbsent(nome, novo);
+                if (futuro == null) {
+                    futuro = novo;
+                    carregar(nome, novo);
+                }
+            }
+
+            Modelo modelo = aguardar(futuro);
+
+            long agora = System.currentTimeMillis();
+            if (agora - modelo.verificadoEm < INTERVALO_VERIFICACAO_MS) {
+                return modelo.relatorio;
+            }
+            modelo.verificadoEm = agora;
+            if (versaoAtual(nome).equals(modelo.versao)) {
+                return modelo.relatorio;
+            }
+
+            //arquivo mudou: descarta e carrega de novo na proxima volta
+            CACHE.remove(nome, futuro);
+        }
+    }
+
+    //carrega (e compila, se for o caso) em segundo plano, para o primeiro clique nao esperar
+    public static void preCarregar(String... nomes) {
+        Thread thread = new Thread(() -> {
+            for (String nome : nomes) {
+                try {
+                    obter(nome);
+                } catch (JRException e) {
+                    System.out.println("ERRO ao pre-carregar relatorio " + nome + " -> " + e.getMessage());
+                }
+            }
+        }, "techdesk-relatorios");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    private static void carregar(String nome, CompletableFuture<Modelo> futuro) {
+        try {
+            URL jasper = RegistroRelatorios.class.getResource(PASTA + nome + ".jasper");
+            URL jrxml = RegistroRelatorios.class.getResource(PASTA + nome + ".jrxml");
+            Versao versao = new Versao(dataModificacao(jasper), dataModificacao(jrxml));
+
+            JasperReport relatorio;
+            if (COMPILAR_JRXML && jrxml != null && versao.jrxml() > versao.jasper()) {
+                try (InputStream in = jrxml.openStream()) {
+                    relatorio = JasperCompileManager.compileReport(in);
+                }
+            } else if (jasper != null) {
+                relatorio = (JasperReport) JRLoader.loadObject(jasper);
+            } else {
+                throw new JRException("Relatorio nao encontrado no classpath: " + PASTA + nome + ".jasper");
+            }
+
+            futuro.complete(new Modelo(relatorio, versao));
+
+        } catch (JRException | IOException | RuntimeException e) {
+            //falhou: sai do cache para a proxima chamada tentar de novo
+            CACHE.remove(nome, futuro);
+            futuro.completeExceptionally(e);
+        }
+    }
+
+    private static Modelo aguardar(CompletableFuture<Modelo> futuro) throws JRException {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof JRException jr) throw jr;
+            throw new JRException("Erro ao carregar relatorio: " + causa.getMessage(), causa);
+        }
+    }
+
+    private static Versao versaoAtual(String nome) {
+        return new Versao(
+                dataModificacao(RegistroRelatorios.class.getResource(PASTA + nome + ".jasper")),
+                dataModificacao(RegistroRelatorios.class.getResource(PASTA + nome + ".jrxml")));
+    }
+
+    private static long dataModificacao(URL url) {
+        if (url == null) return 0;
+        try {
+            if ("file".equals(url.getProtocol())) {
+                return new File(url.toURI()).lastModified();
+            }
+            //dentro do jar: data da entrada
+            URLConnection conexao = url.openConnection();
+            return conexao.getLastModified();
+        } catch (IOException | URISyntaxException e) {
+            return 0;
+        }
+    }
+}
@@ -6,39 +6,236 @@ package com.mycompany.projetotechdesk.util;
 
 
 import java.awt.Desktop;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.function.IntConsumer;
+import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRException;
-import net.sf.jasperreports.engine.JasperExportManager;
+import net.sf.jasperreports.engine.JRParameter;
 import net.sf.jasperreports.engine.JasperFillManager;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReport;
-import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import net.sf.jasperreports.pdf.JRPdfExporter;
+import net.sf.jasperreports.pdf.SimplePdfReportConfiguration;
 
 /**
+ * Preenchimento e exportacao de relatorios.
+ *
+ * O preenchimento pode rodar a consulta do proprio modelo numa Connection ou
+ * ler de um JRDataSource (ex.: FonteDadosOS com O.S. que o DAO ja trouxe).
+ *
+ * Memoria: com virtualizador, so as PAGINAS_EM_MEMORIA paginas mais recentes
+ * ficam no heap; as outras vao para um arquivo de troca no spool ("swap") ou
+ * ficam compactadas em memoria ("gzip"). Relatorio pequeno nem chega a usar.
+ *
+ * Disco: PDFs e arquivos de troca ficam numa pasta de spool propria, que e
+ * limpa por tamanho (os mais antigos saem primeiro) em vez de deleteOnExit.
+ *
+ * Ajustes por -D: techdesk.relatorios.virtualizador (swap, gzip ou nenhum),
+ * techdesk.relatorios.paginasEmMemoria, techdesk.relatorios.spool (pasta) e
+ * techdesk.relatorios.spoolMaxMB.
  *
  * @author carlo
  */
 public class RelatorioUtil {
-    public static void abrirPDF(String caminho, Map<String, Object> parametros, Connection con) throws IOException{
+    
+    private static final String VIRTUALIZADOR = System.getProperty("techdesk.relatorios.virtualizador", "swap");
+    private static final int PAGINAS_EM_MEMORIA = Math.max(2, Integer.getInteger("techdesk.relatorios.paginasEmMemoria", 50));
+    private static final File SPOOL = new File(System.getProperty("techdesk.relatorios.spool",
+            new File(System.getProperty("java.io.tmpdir"), "techdesk-relatorios").getPath()));
+    private static final long SPOOL_MAX_BYTES = Math.max(1, Long.getLong("techdesk.relatorios.spoolMaxMB", 200)) * 1024 * 1024;
+    
+    //arquivo de troca: blocos de 4 KiB, cresce de 256 em 256 blocos (1 MiB)
+    private static final int BLOCO_SWAP = 4096;
+    private static final int CRESCIMENTO_SWAP = 256;
+    //arquivo de troca sem uso ha mais tempo que isso sobrou de uma execucao que caiu
+    private static final long SWAP_ABANDONADO_MS = 60 * 60 * 1000;
+    
+    //preenche, exporta e abre na hora, na thread de quem chama.
+    //Nas telas use o ServicoRelatorios, que faz isso fora da EDT.
+    //nomeRelatorio: modelo em /relatorios no classpath (ver RegistroRelatorios)
+    public static void abrirPDF(String nomeRelatorio, Map<String, Object> parametros, Connection con) throws IOException{
+        abrirPDF(nomeRelatorio, parametros, (relatorio, comVirtualizador) ->
+                JasperFillManager.fillReport(relatorio, comVirtualizador, con));
+    }
+    
+    //mesma coisa, lendo as linhas de "dados" em vez de rodar a consulta do modelo.
+    //"dados" nao e fechado aqui.
+    public static void abrirPDF(String nomeRelatorio, Map<String, Object> parametros, JRDataSource dados) throws IOException{
+        abrirPDF(nomeRelatorio, parametros, (relatorio, comVirtualizador) ->
+                JasperFillManager.fillReport(relatorio, comVirtualizador, dados));
+    }
+    
+    //de onde vem as linhas: a consulta do modelo numa conexao ou um JRDataSource
+    @FunctionalInterface
+    private interface Preenchimento {
+        JasperPrint preencher(JasperReport relatorio, Map<String, Object> parametros) throws JRException;
+    }
+    
+    private static void abrirPDF(String nomeRelatorio, Map<String, Object> parametros, Preenchimento preenchimento) throws IOException{
         
         try {
             
-            JasperReport relatorio = (JasperReport) JRLoader.loadObjectFromFile(caminho);
-            
-            JasperPrint print = JasperFillManager.fillReport(relatorio, parametros, con);
+            JasperReport relatorio = RegistroRelatorios.obter(nomeRelatorio);
             
-            File pdfTemp = File.createTempFile("relatorioOS_", ".pdf");
-            pdfTemp.deleteOnExit();
+            File pdfTemp = criarArquivoTemporario();
+            try (OutputStream saida = new BufferedOutputStream(new FileOutputStream(pdfTemp))) {
+                gerarPDF(relatorio, parametros, preenchimento, saida);
+            }
             
-            JasperExportManager.exportReportToPdfFile(print, pdfTemp.getAbsolutePath());
-            
-            Desktop.getDesktop().open(pdfTemp);
+            abrirArquivo(pdfTemp);
         
         } catch (JRException e) {
             e.printStackTrace();
         }
     }
+    
+    //preenche (virtualizado) e escreve o PDF direto em "saida" (arquivo, resposta HTTP...).
+    //"saida" nao e fechada aqui.
+    public static void gerarPDF(JasperReport relatorio, Map<String, Object> parametros, Connection con, OutputStream saida) throws JRException {
+        gerarPDF(relatorio, parametros, (modelo, comVirtualizador) ->
+                JasperFillManager.fillReport(modelo, comVirtualizador, con), saida);
+    }
+    
+    //com as linhas de "dados" (nem "dados" nem "saida" sao fechados aqui)
+    public static void gerarPDF(JasperReport relatorio, Map<String, Object> parametros, JRDataSource dados, OutputStream saida) throws JRException {
+        gerarPDF(relatorio, parametros, (modelo, comVirtualizador) ->
+                JasperFillManager.fillReport(modelo, comVirtualizador, dados), saida);
+    }
+    
+    private static void gerarPDF(JasperReport relatorio, Map<String, Object> parametros, Preenchimento preenchimento, OutputStream saida) throws JRException {
+        try (Virtualizacao virtualizacao = virtualizar(parametros)) {
+            JasperPrint print = preenchimento.preencher(relatorio, virtualizacao.getParametros());
+            virtualizacao.preenchimentoConcluido();
+            exportarPDF(print, saida, null);
+        }
+    }
+    
+    /**
+     * Virtualizador de um preenchimento. Os parametros devolvidos ja levam o
+     * REPORT_VIRTUALIZER; feche depois da exportacao (o JasperPrint deixa de
+     * valer) para apagar o arquivo de troca.
+     */
+    public static class Virtualizacao implements AutoCloseable {
+        private final JRAbstractLRUVirtualizer virtualizador;
+        private final Map<String, Object> parametros;
+        
+        private Virtualizacao(JRAbstractLRUVirtualizer virtualizador, Map<String, Object> parametros) {
+            this.virtualizador = virtualizador;
+            this.parametros = parametros;
+        }
+        
+        public Map<String, Object> getParametros() {
+            return parametros;
+        }
+        
+        //depois do fill as paginas nao mudam mais: o virtualizador para de regravar as que saem da memoria
+        public void preenchimentoConcluido() {
+            if (virtualizador != null) virtualizador.setReadOnly(true);
+        }
+        
+        @Override
+        public void close() {
+            if (virtualizador != null) virtualizador.cleanup();
+        }
+    }
+    
+    //copia os parametros e acrescenta o virtualizador configurado (se algum)
+    public static Virtualizacao virtualizar(Map<String, Object> parametros) {
+        Map<String, Object> comVirtualizador = new HashMap<>(parametros);
+        JRAbstractLRUVirtualizer virtualizador = switch (VIRTUALIZADOR) {
+            case "nenhum" -> null;
+            case "gzip" -> new JRGzipVirtualizer(PAGINAS_EM_MEMORIA);
+            default -> {
+                File pastaSwap = pastaSpool("swap");
+                //true: o virtualizador e dono do arquivo e o apaga no cleanup
+                yield new JRSwapFileVirtualizer(PAGINAS_EM_MEMORIA,
+                        new JRSwapFile(pastaSwap.getPath(), BLOCO_SWAP, CRESCIMENTO_SWAP), true);
+            }
+        };
+        if (virtualizador != null) {
+            comVirtualizador.put(JRParameter.REPORT_VIRTUALIZER, virtualizador);
+        }
+        return new Virtualizacao(virtualizador, comVirtualizador);
+    }
+    
+    //PDF novo no spool; antes abre espaco apagando os mais antigos se passou do limite
+    public static File criarArquivoTemporario() throws IOException {
+        limparSpool();
+        return File.createTempFile("relatorioOS_", ".pdf", pastaSpool(null));
+    }
+    
+    //apaga PDFs antigos ate o spool caber em SPOOL_MAX_BYTES e arquivos de troca abandonados.
+    //Arquivo aberto em outro programa (Windows) nao apaga: fica para a proxima.
+    public static synchronized void limparSpool() {
+        File[] pdfs = pastaSpool(null).listFiles(f -> f.isFile() && f.getName().endsWith(".pdf"));
+        if (pdfs != null) {
+            long total = 0;
+            for (File pdf : pdfs) total += pdf.length();
+            
+            if (total > SPOOL_MAX_BYTES) {
+                Arrays.sort(pdfs, Comparator.comparingLong(File::lastModified));
+                for (File pdf : pdfs) {
+                    if (total <= SPOOL_MAX_BYTES) break;
+                    long tamanho = pdf.length();
+                    if (pdf.delete()) total -= tamanho;
+                }
+            }
+        }
+        
+        long limite = System.currentTimeMillis() - SWAP_ABANDONADO_MS;
+        File[] swaps = pastaSpool("swap").listFiles(f -> f.isFile() && f.lastModified() < limite);
+        if (swaps != null) {
+            for (File swap : swaps) swap.delete();
+        }
+    }
+    
+    private static File pastaSpool(String subpasta) {
+        File pasta = subpasta == null ? SPOOL : new File(SPOOL, subpasta);
+        if (!pasta.isDirectory() && !pasta.mkdirs()) {
+            System.out.println("ERRO ao criar a pasta de spool " + pasta.getAbsolutePath());
+        }
+        return pasta;
+    }
+    
+    //aposPagina (opcional) recebe quantas paginas ja foram exportadas
+    public static void exportarPDF(JasperPrint print, File destino, IntConsumer aposPagina) throws JRException, IOException {
+        try (OutputStream saida = new BufferedOutputStream(new FileOutputStream(destino))) {
+            exportarPDF(print, saida, aposPagina);
+        }
+    }
+    
+    //escreve direto no stream, pagina a pagina (sem montar o PDF inteiro em memoria)
+    public static void exportarPDF(JasperPrint print, OutputStream saida, IntConsumer aposPagina) throws JRException {
+        JRPdfExporter exportador = new JRPdfExporter();
+        exportador.setExporterInput(new SimpleExporterInput(print));
+        exportador.setExporterOutput(new SimpleOutputStreamExporterOutput(saida));
+        
+        if (aposPagina != null) {
+            SimplePdfReportConfiguration configuracao = new SimplePdfReportConfiguration();
+            int[] exportadas = {0};
+            configuracao.setProgressMonitor(() -> aposPagina.accept(++exportadas[0]));
+            exportador.setConfiguration(configuracao);
+        }
+        
+        exportador.exportReport();
+    }
+    
+    public static void abrirArquivo(File arquivo) throws IOException {
+        Desktop.getDesktop().open(arquivo);
+    }
 }
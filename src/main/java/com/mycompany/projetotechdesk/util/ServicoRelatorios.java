@@ -0,0 +1,239 @@
+package com.mycompany.projetotechdesk.util;
+
+import com.mycompany.projetotechdesk.database.Conexao;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.fill.FillListener;
+import net.sf.jasperreports.engine.fill.JRFiller;
+import net.sf.jasperreports.engine.fill.ReportFiller;
+
+/**
+ * Gera relatorios PDF fora da EDT, com progresso e cancelamento.
+ *
+ * Os trabalhos rodam num pool fixo de SIMULTANEOS threads com uma fila de no
+ * maximo FILA pedidos; alem disso o pedido e recusado na hora. Assim varios
+ * relatorios grandes pedidos juntos nao enchem a memoria nem seguram todas as
+ * conexoes do pool. A conexao so fica emprestada durante o preenchimento, e
+ * o preenchimento usa o virtualizador do RelatorioUtil (paginas alem do
+ * limite vao para o disco). Com uma FonteDados o relatorio le as linhas dela
+ * (ex.: FonteDadosOS) e nao roda a propria consulta.
+ *
+ * Resultado e progresso chegam na EDT, como no DAOAssincrono.
+ *
+ * -Dtechdesk.relatorios.simultaneos=N e -Dtechdesk.relatorios.fila=N ajustam os limites.
+ *
+ * @author carlo
+ */
+public class ServicoRelatorios {
+
+    public enum Etapa { NA_FILA, PREENCHENDO, EXPORTANDO }
+
+    //totalPaginas so e conhecido na exportacao (0 antes disso)
+    public record Progresso(Etapa etapa, int paginas, int totalPaginas) {}
+
+    //abre as linhas do relatorio ja na thread do trabalho; se for AutoCloseable, e fechada no fim
+    @FunctionalInterface
+    public interface FonteDados {
+        JRDataSource abrir() throws SQLException;
+    }
+
+    private static final int SIMULTANEOS = Math.max(1, Integer.getInteger("techdesk.relatorios.simultaneos", 2));
+    private static final int FILA = Math.max(0, Integer.getInteger("techdesk.relatorios.fila", 4));
+
+    private static final AtomicInteger NUMERO_THREAD = new AtomicInteger();
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            SIMULTANEOS, SIMULTANEOS, 60, TimeUnit.SECONDS,
+            FILA == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(FILA),
+            tarefa -> {
+                Thread thread = new Thread(tarefa, "techdesk-relatorio-" + NUMERO_THREAD.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    //gera o PDF de /relatorios/nomeRelatorio num arquivo temporario.
+    //aoProgredir (opcional) e chamado na EDT.
+    public static Trabalho gerarPDF(String nomeRelatorio, Map<String, Object> parametros, Consumer<Progresso> aoProgredir) {
+        return gerarPDF(nomeRelatorio, parametros, null, aoProgredir);
+    }
+
+    //mesma coisa, preenchendo com as linhas de "fonte" (null = consulta do modelo numa conexao do pool)
+    public static Trabalho gerarPDF(String nomeRelatorio, Map<String, Object> parametros, FonteDados fonte, Consumer<Progresso> aoProgredir) {
+        Trabalho trabalho = new Trabalho(nomeRelatorio, new HashMap<>(parametros), fonte, aoProgredir);
+        trabalho.publicar(new Progresso(Etapa.NA_FILA, 0, 0));
+        try {
+            trabalho.tarefa = EXECUTOR.submit(trabalho::executar);
+        } catch (RejectedExecutionException e) {
+            trabalho.falhar(new IllegalStateException(
+                    "Muitos relatórios em andamento. Aguarde um terminar e tente de novo."));
+        }
+        return trabalho;
+    }
+
+    /**
+     * Um relatorio pedido. getResultado() completa na EDT com o PDF gerado,
+     * com o erro, ou com CancellationException se cancelar() foi chamado.
+     */
+    public static class Trabalho {
+
+        private final String nomeRelatorio;
+        private final Map<String, Object> parametros;
+        private final FonteDados fonte;
+        private final Consumer<Progresso> aoProgredir;
+        private final CompletableFuture<File> resultado = new CompletableFuture<>();
+
+        private volatile Future<?> tarefa;
+        private volatile ReportFiller preenchedor;
+        private volatile boolean cancelado = false;
+
+        //ultimo progresso ainda nao entregue: varias paginas viram uma so atualizacao na EDT
+        private final AtomicReference<Progresso> progressoPendente = new AtomicReference<>();
+
+        private Trabalho(String nomeRelatorio, Map<String, Object> parametros, FonteDados fonte, Consumer<Progresso> aoProgredir) {
+            this.nomeRelatorio = nomeRelatorio;
+            this.parametros = parametros;
+            this.fonte = fonte;
+            this.aoProgredir = aoProgredir;
+        }
+
+        public CompletableFuture<File> getResultado() {
+            return resultado;
+        }
+
+        public boolean isCancelado() {
+            return cancelado;
+        }
+
+        //pode ser chamado de qualquer thread; na fila o trabalho nem comeca,
+        //preenchendo o Jasper cancela a consulta, exportando para na proxima pagina
+        public void cancelar() {
+            if (cancelado) return;
+            cancelado = true;
+
+            Future<?> atual = tarefa;
+            if (atual != null) atual.cancel(false);
+
+            ReportFiller filler = preenchedor;
+            if (filler != null) {
+                try {
+                    filler.cancelFill();
+                } catch (JRException e) {
+                    System.out.println("ERRO ao cancelar preenchimento -> " + e.getMessage());
+                }
+            }
+            falhar(new CancellationException("Relatório cancelado."));
+        }
+
+        private void executar() {
+            File pdf = null;
+            try (RelatorioUtil.Virtualizacao virtualizacao = RelatorioUtil.virtualizar(parametros)) {
+                JasperReport modelo = RegistroRelatorios.obter(nomeRelatorio);
+                verificarCancelado();
+                publicar(new Progresso(Etapa.PREENCHENDO, 0, 0));
+
+                ReportFiller filler = JRFiller.createReportFiller(DefaultJasperReportsContext.getInstance(), modelo);
+                filler.addFillListener(new FillListener() {
+                    @Override
+                    public void pageGenerated(JasperPrint print, int indicePagina) {
+                        publicar(new Progresso(Etapa.PREENCHENDO, indicePagina + 1, 0));
+                    }
+
+                    @Override
+                    public void pageUpdated(JasperPrint print, int indicePagina) {
+                    }
+                });
+                preenchedor = filler;
+                verificarCancelado();
+
+                JasperPrint print;
+                try {
+                    print = preencher(filler, virtualizacao.getParametros());
+                } finally {
+                    preenchedor = null;
+                }
+                virtualizacao.preenchimentoConcluido();
+                verificarCancelado();
+
+                int total = print.getPages().size();
+                publicar(new Progresso(Etapa.EXPORTANDO, 0, total));
+                pdf = RelatorioUtil.criarArquivoTemporario();
+                RelatorioUtil.exportarPDF(print, pdf, pagina -> {
+                    verificarCancelado();
+                    publicar(new Progresso(Etapa.EXPORTANDO, pagina, total));
+                });
+                verificarCancelado();
+
+                File pronto = pdf;
+                SwingUtilities.invokeLater(() -> resultado.complete(pronto));
+
+            } catch (Throwable e) {
+                if (pdf != null) pdf.delete();
+                falhar(cancelado ? new CancellationException("Relatório cancelado.") : e);
+            }
+        }
+
+        private JasperPrint preencher(ReportFiller filler, Map<String, Object> parametrosFill) throws JRException, SQLException {
+            if (fonte == null) {
+                try (Connection con = Conexao.getConexao()) {
+                    if (con == null) throw new SQLException("Sem conexão com o banco.");
+                    return filler.fill(parametrosFill, con);
+                }
+            }
+
+            JRDataSource dados = fonte.abrir();
+            try {
+                return filler.fill(parametrosFill, dados);
+            } finally {
+                if (dados instanceof AutoCloseable fechavel) {
+                    try {
+                        fechavel.close();
+                    } catch (Exception e) {
+                        System.out.println("ERRO ao fechar fonte do relatorio -> " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        private void verificarCancelado() {
+            if (cancelado) throw new CancellationException("Relatório cancelado.");
+        }
+
+        private void publicar(Progresso progresso) {
+            if (aoProgredir == null || cancelado) return;
+            if (progressoPendente.getAndSet(progresso) == null) {
+                SwingUtilities.invokeLater(() -> {
+                    Progresso ultimo = progressoPendente.getAndSet(null);
+                    if (ultimo != null && !cancelado) aoProgredir.accept(ultimo);
+                });
+            }
+        }
+
+        private void falhar(Throwable erro) {
+            SwingUtilities.invokeLater(() -> resultado.completeExceptionally(erro));
+        }
+    }
+}
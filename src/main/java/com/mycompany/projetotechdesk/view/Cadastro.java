@@ -8,6 +8,7 @@ import com.mycompany.projetotechdesk.Model.Contato;
 import com.mycompany.projetotechdesk.Model.Empresa;
 import com.mycompany.projetotechdesk.Model.Endereco;
 import com.mycompany.projetotechdesk.Model.Usuario;
+import com.mycompany.projetotechdesk.dao.DAOAssincrono;
 import com.mycompany.projetotechdesk.dao.UsuarioDAO;
 import com.mycompany.projetotechdesk.util.placeholder;
 import javax.swing.JOptionPane;
@@ -415,15 +416,20 @@ public class Cadastro extends javax.swing.JFrame {
             admin.setContato(contato);
             admin.setEndereco(endereco);
             
-            //chama o DAO para salvar
-            boolean sucesso = usuarioDAO.registrarNovaEmpresaEUsuario(empresa, admin);
+            //chama o DAO para salvar (fora da EDT)
+            btnCadastrar.setEnabled(false);
             
-            if (sucesso) {
-                JOptionPane.showMessageDialog(this, "Cadastro realizado com sucesso!\nFaça login para começar.");
-                
-            } else {
-                JOptionPane.showMessageDialog(this, "ERRO ao cadastrar.\nVerifique se o email ou CNPJ ja existem.", "ERRO", JOptionPane.ERROR_MESSAGE);
-            }
+            DAOAssincrono.executar(() -> usuarioDAO.registrarNovaEmpresaEUsuario(empresa, admin)).thenAccept(sucesso -> {
+                if (sucesso) {
+                    JOptionPane.showMessageDialog(this, "Cadastro realizado com sucesso!\nFaça login para começar.");
+
+                } else {
+                    JOptionPane.showMessageDialog(this, "ERRO ao cadastrar.\nVerifique se o email ou CNPJ ja existem.", "ERRO", JOptionPane.ERROR_MESSAGE);
+                }
+            }).exceptionally(e -> {
+                JOptionPane.showMessageDialog(this, "ERRO inesperado: " + DAOAssincrono.causa(e).getMessage());
+                return null;
+            }).whenComplete((v, e) -> btnCadastrar.setEnabled(true));
             
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "ERRO inesperado: " + e.getMessage());
@@ -0,0 +1,101 @@
+package com.mycompany.projetotechdesk.view;
+
+import com.mycompany.projetotechdesk.util.ServicoRelatorios;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+
+/**
+ * Janela (nao modal) com o andamento de um relatorio do ServicoRelatorios
+ * e um botao para cancelar. Fecha sozinha quando o trabalho termina.
+ *
+ * @author carlo
+ */
+public class DialogoProgressoRelatorio extends JDialog {
+
+    private final JLabel lblEtapa = new JLabel("Aguardando...");
+    private final JProgressBar barra = new JProgressBar();
+    private final JButton btnCancelar = new JButton("Cancelar");
+
+    private ServicoRelatorios.Trabalho trabalho;
+
+    public DialogoProgressoRelatorio(Window dono, String titulo) {
+        super(dono, titulo, ModalityType.MODELESS);
+        setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+
+        barra.setIndeterminate(true);
+        barra.setStringPainted(true);
+        barra.setString("");
+
+        JPanel conteudo = new JPanel(new BorderLayout(0, 8));
+        conteudo.setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+        conteudo.add(lblEtapa, BorderLayout.NORTH);
+        conteudo.add(barra, BorderLayout.CENTER);
+
+        JPanel botoes = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+        botoes.add(btnCancelar);
+        conteudo.add(botoes, BorderLayout.SOUTH);
+        setContentPane(conteudo);
+
+        btnCancelar.addActionListener(e -> cancelar());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cancelar();
+            }
+        });
+
+        setSize(360, 140);
+        setLocationRelativeTo(dono);
+    }
+
+    //liga o dialogo ao trabalho: cancelar interrompe, e ao terminar (de qualquer jeito) fecha
+    public void acompanhar(ServicoRelatorios.Trabalho trabalho) {
+        this.trabalho = trabalho;
+        trabalho.getResultado().whenComplete((pdf, erro) -> dispose());
+        if (!trabalho.getResultado().isDone()) {
+            setVisible(true);
+        }
+    }
+
+    //recebe o progresso na EDT (passe como aoProgredir do ServicoRelatorios.gerarPDF)
+    public void mostrar(ServicoRelatorios.Progresso progresso) {
+        switch (progresso.etapa()) {
+            case NA_FILA -> {
+                lblEtapa.setText("Na fila, aguardando outros relatórios...");
+                barra.setIndeterminate(true);
+                barra.setString("");
+            }
+            case PREENCHENDO -> {
+                lblEtapa.setText("Buscando os dados...");
+                barra.setIndeterminate(true);
+                barra.setString(progresso.paginas() > 0 ? progresso.paginas() + " página(s)" : "");
+            }
+            case EXPORTANDO -> {
+                lblEtapa.setText("Gerando o PDF...");
+                barra.setIndeterminate(false);
+                barra.setMaximum(Math.max(1, progresso.totalPaginas()));
+                barra.setValue(progresso.paginas());
+                barra.setString(progresso.paginas() + " de " + progresso.totalPaginas());
+            }
+        }
+    }
+
+    private void cancelar() {
+        btnCancelar.setEnabled(false);
+        lblEtapa.setText("Cancelando...");
+        if (trabalho != null) {
+            trabalho.cancelar();
+        } else {
+            dispose();
+        }
+    }
+}
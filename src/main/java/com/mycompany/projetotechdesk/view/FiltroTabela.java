@@ -0,0 +1,173 @@
+package com.mycompany.projetotechdesk.view;
+
+import com.mycompany.projetotechdesk.util.IndiceTokens;
+import java.awt.BorderLayout;
+import java.awt.Container;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.util.BitSet;
+import java.util.function.IntFunction;
+import javax.swing.GroupLayout;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.RowFilter;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+
+/**
+ * Campo de pesquisa em cima de uma JTable que filtra as linhas ja
+ * carregadas, sem ir ao banco.
+ *
+ * As palavras de cada linha ficam num IndiceTokens que acompanha o modelo
+ * evento a evento (pagina nova, linha alterada, inserida ou removida), entao
+ * cada busca e so juntar as listas de linhas das palavras; o RowFilter
+ * consulta o bit da linha. Reconstrucao completa so quando o modelo inteiro
+ * e trocado.
+ *
+ * @author carlo
+ */
+public class FiltroTabela {
+
+    //espera o usuario parar de digitar antes de filtrar
+    private static final int ESPERA_DIGITACAO_MS = 150;
+
+    private final TableModel modelo;
+    private final IntFunction<String> textoDaLinha;
+    private final IndiceTokens indice = new IndiceTokens();
+    private final TableRowSorter<TableModel> ordenador;
+    private final JTextField campo = new JTextField();
+    private final Timer espera;
+
+    private final RowFilter<TableModel, Integer> filtro = new RowFilter<>() {
+        @Override
+        public boolean include(Entry<? extends TableModel, ? extends Integer> linha) {
+            if (resultadoDesatualizado) atualizarResultado();
+            return resultado == null || resultado.get(linha.getIdentifier());
+        }
+    };
+
+    private String consulta = "";
+    //linhas do modelo que casam com a consulta; null = sem filtro
+    private BitSet resultado = null;
+    //o modelo mudou depois da ultima busca; refeita so quando o filtro for consultado
+    private boolean resultadoDesatualizado = false;
+
+    private FiltroTabela(JTable tabela, IntFunction<String> textoDaLinha) {
+        this.modelo = tabela.getModel();
+        this.textoDaLinha = textoDaLinha;
+
+        //so filtra; a ordem continua a que veio do banco
+        ordenador = new TableRowSorter<>(modelo);
+        for (int coluna = 0; coluna < modelo.getColumnCount(); coluna++) {
+            ordenador.setSortable(coluna, false);
+        }
+        tabela.setRowSorter(ordenador);
+
+        indice.reconstruir(modelo.getRowCount(), textoDaLinha);
+        //registrado depois da JTable, entao e avisado antes dela (e do ordenador)
+        modelo.addTableModelListener(this::modeloMudou);
+
+        espera = new Timer(ESPERA_DIGITACAO_MS, e -> filtrar());
+        espera.setRepeats(false);
+
+        campo.setToolTipText("Pesquisar nas linhas carregadas (Esc limpa)");
+        campo.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { espera.restart(); }
+            public void removeUpdate(DocumentEvent e) { espera.restart(); }
+            public void changedUpdate(DocumentEvent e) { espera.restart(); }
+        });
+        campo.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ESCAPE) campo.setText("");
+            }
+        });
+    }
+
+    //poe o campo de pesquisa acima do scroll da tabela e liga o filtro.
+    //textoDaLinha: o que pode ser pesquisado na linha (indice do modelo).
+    public static FiltroTabela instalar(JTable tabela, JScrollPane scroll, IntFunction<String> textoDaLinha) {
+        FiltroTabela filtro = new FiltroTabela(tabela, textoDaLinha);
+
+        JPanel barra = new JPanel(new BorderLayout(6, 0));
+        barra.setOpaque(false);
+        barra.add(new JLabel("Pesquisar:"), BorderLayout.WEST);
+        barra.add(filtro.campo, BorderLayout.CENTER);
+
+        JPanel painel = new JPanel(new BorderLayout(0, 4));
+        painel.setOpaque(false);
+
+        //o form usa GroupLayout: troca o scroll pelo painel na mesma posicao do layout
+        Container pai = scroll.getParent();
+        if (pai.getLayout() instanceof GroupLayout layout) {
+            layout.replace(scroll, painel);
+        } else {
+            int posicao = pai.getComponentZOrder(scroll);
+            pai.remove(scroll);
+            pai.add(painel, posicao);
+        }
+        painel.add(barra, BorderLayout.NORTH);
+        painel.add(scroll, BorderLayout.CENTER);
+
+        return filtro;
+    }
+
+    private void filtrar() {
+        consulta = campo.getText();
+        atualizarResultado();
+        //setRowFilter sempre refaz a filtragem, mesmo com o mesmo objeto
+        ordenador.setRowFilter(resultado == null ? null : filtro);
+    }
+
+    private void atualizarResultado() {
+        resultado = indice.buscar(consulta);
+        resultadoDesatualizado = false;
+    }
+
+    private void modeloMudou(TableModelEvent e) {
+        int primeira = e.getFirstRow();
+        int ultima = e.getLastRow();
+        int total = modelo.getRowCount();
+
+        if (primeira == TableModelEvent.HEADER_ROW || ultima == Integer.MAX_VALUE) {
+            //modelo inteiro trocado (fireTableDataChanged/StructureChanged)
+            indice.reconstruir(total, textoDaLinha);
+
+        } else if (e.getType() == TableModelEvent.INSERT) {
+            if (primeira == indice.getTamanho()) {
+                //pagina nova no fim
+                indice.acrescentar(total, textoDaLinha);
+            } else {
+                for (int linha = primeira; linha <= ultima; linha++) {
+                    indice.inserir(linha, textoDaLinha.apply(linha));
+                }
+            }
+
+        } else if (e.getType() == TableModelEvent.DELETE) {
+            if (ultima - primeira > 0) {
+                //setNumRows(0) e afins: mais barato reindexar o que sobrou
+                indice.reconstruir(total, textoDaLinha);
+            } else {
+                indice.remover(primeira);
+            }
+
+        } else {
+            for (int linha = primeira; linha <= ultima; linha++) {
+                indice.atualizar(linha, textoDaLinha.apply(linha));
+            }
+        }
+
+        //com filtro ativo o ordenador refiltra logo em seguida; a busca fica para o
+        //primeiro include, uma vez so por mais eventos que cheguem antes dele
+        if (resultado != null) {
+            resultadoDesatualizado = true;
+        }
+    }
+}
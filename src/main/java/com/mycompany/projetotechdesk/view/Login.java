@@ -5,6 +5,7 @@
 package com.mycompany.projetotechdesk.view;
 
 import com.mycompany.projetotechdesk.Model.Usuario;
+import com.mycompany.projetotechdesk.dao.DAOAssincrono;
 import com.mycompany.projetotechdesk.dao.UsuarioDAO;
 import com.mycompany.projetotechdesk.util.placeholder;
 import javax.swing.JOptionPane;
@@ -285,18 +286,23 @@ public class Login extends javax.swing.JFrame {
             return;
         }
         
-        //Tenta validar no Banco
-        Usuario usuarioLogado = usuarioDAO.validarLogin(email, senha);
+        //Tenta validar no Banco (fora da EDT, a janela continua respondendo)
+        btnEntrarLogin.setEnabled(false);
         
-        if (usuarioLogado != null) {
-            Principal principal = new Principal(usuarioLogado);
-            principal.setVisible(true);
-            
-            this.dispose();
-        
-        } else {
-            JOptionPane.showMessageDialog(this, "Email ou senha invalidos.", "Erro de Login", JOptionPane.ERROR_MESSAGE);
-        } 
+        DAOAssincrono.executar(() -> usuarioDAO.validarLogin(email, senha)).thenAccept(usuarioLogado -> {
+            if (usuarioLogado != null) {
+                Principal principal = new Principal(usuarioLogado);
+                principal.setVisible(true);
+
+                this.dispose();
+
+            } else {
+                JOptionPane.showMessageDialog(this, "Email ou senha invalidos.", "Erro de Login", JOptionPane.ERROR_MESSAGE);
+            } 
+        }).exceptionally(e -> {
+            JOptionPane.showMessageDialog(this, "ERRO ao fazer login: " + DAOAssincrono.causa(e).getMessage(), "Erro de Login", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }).whenComplete((v, e) -> btnEntrarLogin.setEnabled(true));
     }//GEN-LAST:event_btnEntrarLoginActionPerformed
 
     private void cbMostrarSenhaLoginActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cbMostrarSenhaLoginActionPerformed
@@ -0,0 +1,438 @@
+package com.mycompany.projetotechdesk.view;
+
+import com.mycompany.projetotechdesk.Model.Cliente;
+import com.mycompany.projetotechdesk.Model.OrdemServico;
+import com.mycompany.projetotechdesk.Model.Tecnico;
+import com.mycompany.projetotechdesk.dao.CursorOS;
+import com.mycompany.projetotechdesk.dao.DAOAssincrono;
+import java.sql.SQLException;
+import java.text.NumberFormat;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.swing.JScrollBar;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+
+/**
+ * Modelo da tabela de O.S. (tblRelatorioOS) que carrega por paginas.
+ *
+ * So a primeira pagina e buscada ao abrir; as seguintes sao pedidas ao DAO
+ * (em segundo plano) quando a barra de rolagem chega perto do fim.
+ * Mudancas de outras sessoes entram linha a linha por aplicar/remover.
+ *
+ * As linhas ficam em arrays paralelos de primitivos (id, codigo do status,
+ * valores em centavos, datas); nada vira texto ate a celula ser desenhada.
+ * Os valores e a data de saida nao aparecem na tabela, mas vao no
+ * instantaneo() que alimenta o relatorio.
+ *
+ * @author carlo
+ */
+public class ModeloTabelaOS extends AbstractTableModel {
+
+    @FunctionalInterface
+    public interface CarregadorPagina {
+        List<OrdemServico> carregar(CursorOS depoisDe, int tamanhoPagina) throws SQLException;
+    }
+
+    public static final int TAMANHO_PAGINA = 100;
+
+    public static final int COLUNA_ID = 0;
+    public static final int COLUNA_TOTAL = 4;
+
+    //quantas linhas antes do fim ja disparam a proxima pagina
+    private static final int MARGEM_LINHAS = 20;
+
+    private static final String[] COLUNAS = {"ID", "Cliente", "Técnico", "Status", "Total"};
+
+    //data_entrada nula vai para o fim, como se fosse menor que qualquer data
+    private static final long SEM_DATA = Long.MIN_VALUE;
+
+    private final CarregadorPagina carregador;
+    private final Consumer<Exception> tratadorErro;
+
+    //uma posicao por linha; so as primeiras "tamanho" valem
+    private int tamanho = 0;
+    private int[] ids = new int[TAMANHO_PAGINA];
+    private long[] datasEntrada = new long[TAMANHO_PAGINA];
+    private byte[] codigosStatus = new byte[TAMANHO_PAGINA];
+    private long[] totaisCentavos = new long[TAMANHO_PAGINA];
+    private long[] maoObraCentavos = new long[TAMANHO_PAGINA];
+    private long[] pecasCentavos = new long[TAMANHO_PAGINA];
+    private long[] datasSaida = new long[TAMANHO_PAGINA];
+    private String[] nomesCliente = new String[TAMANHO_PAGINA];
+    private String[] nomesTecnico = new String[TAMANHO_PAGINA];
+    //nao aparece na tabela, mas entra na pesquisa (getTextoBusca)
+    private String[] descricoes = new String[TAMANHO_PAGINA];
+
+    //id da O.S. -> linha; acompanha gravar/deslocar/removerLinha para o indiceDe nao varrer a tabela
+    private final Map<Integer, Integer> linhaPorId = new HashMap<>();
+
+    //codigo -> status; os quatro do cbxStatus ja vem cadastrados, outros entram na hora
+    private final List<String> status = new ArrayList<>(List.of("Aberta", "Em Andamento", "Concluida", "Cancelada"));
+    private final Map<String, Byte> codigoPorStatus = new HashMap<>();
+
+    private boolean carregando = false;
+    //nao ha mais o que pedir (ultima pagina chegou ou a carga falhou)
+    private boolean fimDaLista = false;
+    //todas as paginas chegaram sem erro: as linhas sao todas as O.S. da empresa
+    private boolean completa = false;
+
+    //muda a cada recarregar(); pagina que chega de uma geracao antiga e descartada
+    private int geracao = 0;
+
+    public ModeloTabelaOS(CarregadorPagina carregador, Consumer<Exception> tratadorErro) {
+        this.carregador = carregador;
+        this.tratadorErro = tratadorErro;
+        for (int i = 0; i < status.size(); i++) {
+            codigoPorStatus.put(status.get(i), (byte) i);
+        }
+    }
+
+    //busca a primeira pagina de novo; o que esta na tela fica ate ela chegar
+    public void recarregar() {
+        geracao++;
+        fimDaLista = false;
+        completa = false;
+        carregarPagina(null, true);
+    }
+
+    public void carregarMais() {
+        if (carregando || fimDaLista) return;
+        carregarPagina(tamanho == 0 ? null : cursorDaLinha(tamanho - 1), false);
+    }
+
+    private void carregarPagina(CursorOS cursor, boolean substituir) {
+        carregando = true;
+        final int minhaGeracao = geracao;
+
+        DAOAssincrono.executar(() -> carregador.carregar(cursor, TAMANHO_PAGINA)).whenComplete((pagina, erro) -> {
+            if (minhaGeracao != geracao) return;
+            carregando = false;
+
+            if (erro != null) {
+                fimDaLista = true;
+                completa = false;
+                Throwable causa = DAOAssincrono.causa(erro);
+                tratadorErro.accept(causa instanceof Exception ex ? ex : new RuntimeException(causa));
+                return;
+            }
+
+            fimDaLista = pagina.size() < TAMANHO_PAGINA;
+            completa = fimDaLista;
+            if (substituir) {
+                substituir(pagina);
+            } else {
+                acrescentar(pagina);
+            }
+        });
+    }
+
+    //troca todas as linhas de uma vez, com um unico evento para a JTable
+    public void substituir(List<OrdemServico> lista) {
+        int anterior = tamanho;
+        tamanho = 0;
+        linhaPorId.clear();
+        garantirCapacidade(lista.size());
+        for (OrdemServico os : lista) {
+            gravar(tamanho++, os);
+        }
+        //solta os nomes das linhas que sobraram
+        if (anterior > tamanho) {
+            Arrays.fill(nomesCliente, tamanho, anterior, null);
+            Arrays.fill(nomesTecnico, tamanho, anterior, null);
+            Arrays.fill(descricoes, tamanho, anterior, null);
+        }
+        fireTableDataChanged();
+    }
+
+    //pagina seguinte no fim da tabela; pula O.S. que ja chegaram por aviso
+    private void acrescentar(List<OrdemServico> pagina) {
+        int primeira = tamanho;
+        garantirCapacidade(tamanho + pagina.size());
+        for (OrdemServico os : pagina) {
+            if (indiceDe(os.getId()) < 0) {
+                gravar(tamanho++, os);
+            }
+        }
+        if (tamanho > primeira) {
+            fireTableRowsInserted(primeira, tamanho - 1);
+        }
+    }
+
+    //O.S. nova ou alterada (aviso do banco): substitui ou insere so aquela linha.
+    //Se a posicao dela cair depois da ultima pagina carregada, ela vem com a rolagem.
+    public void aplicar(OrdemServico os) {
+        int atual = indiceDe(os.getId());
+        long data = dataEmMs(os.getDataEntrada());
+
+        if (atual >= 0 && datasEntrada[atual] == data) {
+            gravar(atual, os);
+            fireTableRowsUpdated(atual, atual);
+            return;
+        }
+
+        if (atual >= 0) {
+            removerLinha(atual);
+        }
+
+        int posicao = posicaoOrdenada(data, os.getId());
+        if (posicao == tamanho && !completa) return;
+
+        garantirCapacidade(tamanho + 1);
+        deslocar(posicao, posicao + 1, tamanho - posicao);
+        tamanho++;
+        gravar(posicao, os);
+        fireTableRowsInserted(posicao, posicao);
+    }
+
+    public void remover(int idOS) {
+        int atual = indiceDe(idOS);
+        if (atual >= 0) {
+            removerLinha(atual);
+        }
+    }
+
+    private void removerLinha(int indice) {
+        linhaPorId.remove(ids[indice]);
+        deslocar(indice + 1, indice, tamanho - indice - 1);
+        tamanho--;
+        nomesCliente[tamanho] = null;
+        nomesTecnico[tamanho] = null;
+        descricoes[tamanho] = null;
+        fireTableRowsDeleted(indice, indice);
+    }
+
+    private void gravar(int i, OrdemServico os) {
+        ids[i] = os.getId();
+        linhaPorId.put(ids[i], i);
+        datasEntrada[i] = dataEmMs(os.getDataEntrada());
+        codigosStatus[i] = codigoStatus(os.getStatus());
+        totaisCentavos[i] = Math.round(os.getValorTotal() * 100);
+        maoObraCentavos[i] = Math.round(os.getValorMaoObra() * 100);
+        pecasCentavos[i] = Math.round(os.getValorPecas() * 100);
+        datasSaida[i] = dataEmMs(os.getDataSaida());
+        nomesCliente[i] = os.getCliente() != null ? os.getCliente().getNome() : null;
+        nomesTecnico[i] = os.getTecnico() != null ? os.getTecnico().getNome() : null;
+        descricoes[i] = os.getDescricaoProblema();
+    }
+
+    //move "quantidade" linhas de "de" para "para" em todas as colunas
+    private void deslocar(int de, int para, int quantidade) {
+        if (quantidade <= 0) return;
+        System.arraycopy(ids, de, ids, para, quantidade);
+        System.arraycopy(datasEntrada, de, datasEntrada, para, quantidade);
+        System.arraycopy(codigosStatus, de, codigosStatus, para, quantidade);
+        System.arraycopy(totaisCentavos, de, totaisCentavos, para, quantidade);
+        System.arraycopy(maoObraCentavos, de, maoObraCentavos, para, quantidade);
+        System.arraycopy(pecasCentavos, de, pecasCentavos, para, quantidade);
+        System.arraycopy(datasSaida, de, datasSaida, para, quantidade);
+        System.arraycopy(nomesCliente, de, nomesCliente, para, quantidade);
+        System.arraycopy(nomesTecnico, de, nomesTecnico, para, quantidade);
+        System.arraycopy(descricoes, de, descricoes, para, quantidade);
+        //as linhas movidas mudaram de indice
+        for (int i = para; i < para + quantidade; i++) {
+            linhaPorId.put(ids[i], i);
+        }
+    }
+
+    private void garantirCapacidade(int minimo) {
+        if (minimo <= ids.length) return;
+        int nova = Math.max(minimo, ids.length * 2);
+        ids = Arrays.copyOf(ids, nova);
+        datasEntrada = Arrays.copyOf(datasEntrada, nova);
+        codigosStatus = Arrays.copyOf(codigosStatus, nova);
+        totaisCentavos = Arrays.copyOf(totaisCentavos, nova);
+        maoObraCentavos = Arrays.copyOf(maoObraCentavos, nova);
+        pecasCentavos = Arrays.copyOf(pecasCentavos, nova);
+        datasSaida = Arrays.copyOf(datasSaida, nova);
+        nomesCliente = Arrays.copyOf(nomesCliente, nova);
+        nomesTecnico = Arrays.copyOf(nomesTecnico, nova);
+        descricoes = Arrays.copyOf(descricoes, nova);
+    }
+
+    private byte codigoStatus(String texto) {
+        if (texto == null) texto = "";
+        Byte codigo = codigoPorStatus.get(texto);
+        if (codigo == null) {
+            codigo = (byte) status.size();
+            status.add(texto);
+            codigoPorStatus.put(texto, codigo);
+        }
+        return codigo;
+    }
+
+    private static long dataEmMs(Date data) {
+        return data != null ? data.getTime() : SEM_DATA;
+    }
+
+    private static Date dataDeMs(long ms) {
+        return ms == SEM_DATA ? null : new Date(ms);
+    }
+
+    /**
+     * Copia das linhas carregadas, na ordem da tabela, para ser lida fora da
+     * EDT (ex.: FonteDadosOS de um relatorio). So os arrays sao copiados;
+     * cada OrdemServico e montada quando a linha e lida. Com isCompleta()
+     * falso a copia tem so as paginas ja carregadas.
+     */
+    public List<OrdemServico> instantaneo() {
+        final int total = tamanho;
+        final int[] cIds = Arrays.copyOf(ids, total);
+        final long[] cEntradas = Arrays.copyOf(datasEntrada, total);
+        final long[] cSaidas = Arrays.copyOf(datasSaida, total);
+        final byte[] cStatus = Arrays.copyOf(codigosStatus, total);
+        final long[] cTotais = Arrays.copyOf(totaisCentavos, total);
+        final long[] cMaoObra = Arrays.copyOf(maoObraCentavos, total);
+        final long[] cPecas = Arrays.copyOf(pecasCentavos, total);
+        final String[] cClientes = Arrays.copyOf(nomesCliente, total);
+        final String[] cTecnicos = Arrays.copyOf(nomesTecnico, total);
+        final String[] cDescricoes = Arrays.copyOf(descricoes, total);
+        final String[] cTextosStatus = status.toArray(new String[0]);
+
+        return new AbstractList<>() {
+            @Override
+            public OrdemServico get(int i) {
+                OrdemServico os = new OrdemServico();
+                os.setId(cIds[i]);
+                os.setStatus(cTextosStatus[cStatus[i]]);
+                os.setDataEntrada(dataDeMs(cEntradas[i]));
+                os.setDataSaida(dataDeMs(cSaidas[i]));
+                os.setValorTotal(cTotais[i] / 100.0);
+                os.setValorMaoObra(cMaoObra[i] / 100.0);
+                os.setValorPecas(cPecas[i] / 100.0);
+                os.setDescricaoProblema(cDescricoes[i]);
+
+                Cliente c = new Cliente();
+                c.setNome(cClientes[i]);
+                os.setCliente(c);
+                if (cTecnicos[i] != null) {
+                    Tecnico t = new Tecnico();
+                    t.setNome(cTecnicos[i]);
+                    os.setTecnico(t);
+                }
+                return os;
+            }
+
+            @Override
+            public int size() {
+                return total;
+            }
+        };
+    }
+
+    private CursorOS cursorDaLinha(int i) {
+        return new CursorOS(dataDeMs(datasEntrada[i]), ids[i]);
+    }
+
+    private int indiceDe(int idOS) {
+        Integer linha = linhaPorId.get(idOS);
+        return linha != null ? linha : -1;
+    }
+
+    //mesma ordem do listarPaginaOS (data_entrada DESC, id_os DESC), por busca binaria
+    private int posicaoOrdenada(long data, int id) {
+        int baixo = 0;
+        int alto = tamanho;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            boolean vemAntes = datasEntrada[meio] > data
+                    || (datasEntrada[meio] == data && ids[meio] > id);
+            if (vemAntes) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    //busca a proxima pagina quando o usuario rola perto do fim da tabela
+    public void instalarRolagem(JScrollPane scroll, int alturaLinha) {
+        JScrollBar barra = scroll.getVerticalScrollBar();
+        barra.addAdjustmentListener(e -> {
+            int margem = MARGEM_LINHAS * alturaLinha;
+            if (barra.getValue() + barra.getVisibleAmount() >= barra.getMaximum() - margem) {
+                carregarMais();
+            }
+        });
+    }
+
+    //a coluna Total guarda centavos; o "R$ 1.234,56" so e montado ao desenhar a celula
+    public static void instalarFormatacao(JTable tabela) {
+        NumberFormat moeda = NumberFormat.getCurrencyInstance(Locale.of("pt", "BR"));
+
+        DefaultTableCellRenderer renderizador = new DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object valor) {
+                setText(valor instanceof Long centavos ? moeda.format(centavos / 100.0) : "");
+            }
+        };
+        renderizador.setHorizontalAlignment(SwingConstants.RIGHT);
+        tabela.getColumnModel().getColumn(COLUNA_TOTAL).setCellRenderer(renderizador);
+    }
+
+    public int getIdOS(int linha) {
+        return ids[linha];
+    }
+
+    //texto pesquisavel da linha: id, nomes, status e descricao do problema
+    public String getTextoBusca(int linha) {
+        return ids[linha] + " " + nomesCliente[linha] + " " + nomesTecnico[linha] + " "
+                + status.get(codigosStatus[linha]) + " " + descricoes[linha];
+    }
+
+    public boolean isFimDaLista() {
+        return fimDaLista;
+    }
+
+    //diferente de isFimDaLista(): uma pagina que falhou tambem encerra a lista, mas ela fica incompleta
+    public boolean isCompleta() {
+        return completa;
+    }
+
+    @Override
+    public int getRowCount() {
+        return tamanho;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int coluna) {
+        return COLUNAS[coluna];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int coluna) {
+        return switch (coluna) {
+            case COLUNA_ID -> Integer.class;
+            case COLUNA_TOTAL -> Long.class;
+            default -> String.class;
+        };
+    }
+
+    @Override
+    public Object getValueAt(int linha, int coluna) {
+        return switch (coluna) {
+            case COLUNA_ID -> ids[linha];
+            case 1 -> nomesCliente[linha];
+            case 2 -> nomesTecnico[linha] != null ? nomesTecnico[linha] : "Sem Técnico";
+            case 3 -> status.get(codigosStatus[linha]);
+            case COLUNA_TOTAL -> totaisCentavos[linha];
+            default -> null;
+        };
+    }
+}
@@ -6,32 +6,54 @@ package com.mycompany.projetotechdesk.view;
 
 import com.mycompany.projetotechdesk.Model.Cliente;
 import com.mycompany.projetotechdesk.Model.Contato;
+import com.mycompany.projetotechdesk.Model.DashboardStats;
 import com.mycompany.projetotechdesk.Model.Endereco;
+import com.mycompany.projetotechdesk.Model.FaturamentoMensal;
 import com.mycompany.projetotechdesk.Model.OrdemServico;
 import com.mycompany.projetotechdesk.Model.Tecnico;
 import com.mycompany.projetotechdesk.Model.Usuario;
 import com.mycompany.projetotechdesk.dao.ClienteDAO;
+import com.mycompany.projetotechdesk.dao.DAOAssincrono;
+import com.mycompany.projetotechdesk.dao.InvalidadorCaches;
 import com.mycompany.projetotechdesk.dao.OrdemServicoDAO;
 import com.mycompany.projetotechdesk.dao.TecnicoDAO;
-import com.mycompany.projetotechdesk.database.Conexao;
+import com.mycompany.projetotechdesk.database.Mudanca;
+import com.mycompany.projetotechdesk.database.OuvinteMudancas;
+import com.mycompany.projetotechdesk.util.RegistroRelatorios;
 import com.mycompany.projetotechdesk.util.RelatorioUtil;
+import com.mycompany.projetotechdesk.util.FonteDadosOS;
+import com.mycompany.projetotechdesk.util.ServicoRelatorios;
 import static com.sun.java.accessibility.util.SwingEventMonitor.addDocumentListener;
 import java.awt.BorderLayout;
-import java.sql.Connection;
 import java.sql.SQLException;
 
 import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.swing.JOptionPane;
+import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
@@ -72,12 +94,49 @@ public class Principal extends javax.swing.JFrame {
     private List<Cliente> listaClientes = new ArrayList<>();
     private List<Tecnico> listaTecnicos = new ArrayList<>();
     
+    //id -> posicao nos combos da aba de O.S. (montados no preencherCombosOS)
+    private Map<Integer, Integer> indiceClienteCombo = new HashMap<>();
+    private Map<Integer, Integer> indiceTecnicoCombo = new HashMap<>();
+    
+    private ModeloTabelaOS modeloOS;
+    
+    //indices das abas do jTabbedPane1 (ordem do addTab no initComponents)
+    private static final int ABA_CLIENTES = 0;
+    private static final int ABA_TECNICOS = 1;
+    private static final int ABA_OS = 2;
+    private static final int ABA_FINANCEIRO = 3;
+    
+    //abas ja abertas (ou pre-carregadas); as demais ainda nao foram ao banco.
+    //Lida tambem pela thread do OuvinteMudancas.
+    private final Set<Integer> abasCarregadas = ConcurrentHashMap.newKeySet();
+    private Timer timerPreCarga;
+    
+    //cargas em andamento; uma nova cancela a anterior para a resposta velha nao sobrescrever a nova
+    private CompletableFuture<?> cargaClientes = CompletableFuture.completedFuture(null);
+    private CompletableFuture<?> cargaTecnicos = CompletableFuture.completedFuture(null);
+    private CompletableFuture<?> cargaCombos = CompletableFuture.completedFuture(null);
+    private CompletableFuture<?> cargaRelatorios = CompletableFuture.completedFuture(null);
+    
+    //avisos de outras sessoes (LISTEN/NOTIFY); removido no dispose
+    private Consumer<Mudanca> ouvinteMudancas;
+    //agrupa rajadas de avisos numa unica recarga
+    private Timer timerDashboard;
+    private Timer timerCadastros;
+    private Timer timerOS;
+    //O.S. avisadas e ainda nao aplicadas: a thread do ouvinte poe, a EDT retira (sincronizado no proprio Set)
+    private final Set<Integer> osAlteradas = new LinkedHashSet<>();
+    
     private OrdemServico osSelecionada = null;
     private Cliente clienteSelecionado = null;
     private Tecnico tecnicoSelecionado = null;
     
     private double valorTotalOS = 0;
     private double valorPendenteOS = 0;
+    
+    //meses no grafico de faturamento mensal
+    private static final int MESES_FATURAMENTO = 12;
+    //no panelGraficoTotalValor: pizza faturado x pendente e barras por mes
+    private JTabbedPane abasGraficoValores;
 
     
     
@@ -97,26 +156,32 @@ public class Principal extends javax.swing.JFrame {
         this.clienteDAO = new ClienteDAO();
         this.tecnicoDAO = new TecnicoDAO();
         
+        configurarTabelaOS();
+        configurarPesquisa();
         aplicarPermissoes();
         
-        //carrega os dados da aba de OS
-        try{
-            preencherCombosOS();
-            atualizarTabelaOS();
-            atualizarTabelaClientes();
-            atualizarTabelaTecnico();
-            atualizarRelatorios();
-            gerarGraficoStatusOS();
-            gerarGraficoValoresOS();
-            
-        } catch (Exception e){
-            JOptionPane.showMessageDialog(this, "ERRO ao carregar dados: " + e.getMessage()); 
-        }
+        //cada aba busca seus dados na primeira vez que e aberta
+        configurarCargaPorAba();
         
         //define data de hoje no campo
         if (FtdDataEntradaOS != null) {
             FtdDataEntradaOS.setText(sdf.format(new Date()));
         }
+        
+        iniciarOuvinteMudancas();
+    }
+    
+    @Override
+    public void dispose() {
+        if (ouvinteMudancas != null) {
+            OuvinteMudancas.getInstancia().removerOuvinte(ouvinteMudancas);
+            ouvinteMudancas = null;
+        }
+        if (timerDashboard != null) timerDashboard.stop();
+        if (timerCadastros != null) timerCadastros.stop();
+        if (timerOS != null) timerOS.stop();
+        if (timerPreCarga != null) timerPreCarga.stop();
+        super.dispose();
     }
     
     
@@ -1383,17 +1448,18 @@ public class Principal extends javax.swing.JFrame {
 
         int confirm = JOptionPane.showConfirmDialog(this, "Excluir O.S. " + idOS + "?", "CONFIRMAÇÂO", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                osDAO.excluir(idOS, usuarioLogado.getEmpresa().getId());
+            int idEmpresa = usuarioLogado.getEmpresa().getId();
+            btnExcluirOS.setEnabled(false);
+            
+            DAOAssincrono.executarSemRetorno(() -> {
+                osDAO.excluir(idOS, idEmpresa);
+            }).thenRun(() -> {
                 atualizarTabelaOS();
                 limparFormulariosOS(); 
                 atualizarRelatorios();
-                gerarGraficoStatusOS();
-                gerarGraficoValoresOS();
                 JOptionPane.showMessageDialog(this, "Excluido.");
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this, "ERRO: " + e.getMessage());
-            }
+            }).exceptionally(e -> mostrarErro("ERRO: ", e))
+              .whenComplete((v, e) -> btnExcluirOS.setEnabled(true));
         }
     }//GEN-LAST:event_btnExcluirOSActionPerformed
 
@@ -1404,21 +1470,14 @@ public class Principal extends javax.swing.JFrame {
             return;
         }
 
-        try {
-            // Pega o ID da tabela
-            int idOS = (int) tblRelatorioOS.getValueAt(linha, 0);
-
-            // RECARREGA A LISTA
-            List<OrdemServico> listaTemp = osDAO.listarTabelaOS(usuarioLogado.getEmpresa().getId());
-
-            for(OrdemServico os : listaTemp) {
-                if(os.getId() == idOS) {
-                    osSelecionada = os;
-                    break;
-                }
-            }
+        // Pega o ID da tabela
+        int idOS = (int) tblRelatorioOS.getValueAt(linha, 0);
+        int idEmpresa = usuarioLogado.getEmpresa().getId();
 
-            if(osSelecionada == null) return;
+        // BUSCA SÓ A O.S. SELECIONADA (normalmente já está no cache da listagem)
+        DAOAssincrono.executar(() -> osDAO.buscarPorId(idOS, idEmpresa)).thenAccept(os -> {
+            if(os == null) return;
+            osSelecionada = os;
 
             //  PREENCHE OS CAMPOS
 
@@ -1439,24 +1498,18 @@ public class Principal extends javax.swing.JFrame {
             if(osSelecionada.getDataSaida() != null)
             ftdDataSaidaOS.setText(sdf.format(osSelecionada.getDataSaida()));
 
-            // Cliente
-            for(int i=0; i<cbxClienteOS.getItemCount(); i++){
-                Cliente c = (Cliente) cbxClienteOS.getItemAt(i);
-                if(c.getId() == osSelecionada.getCliente().getId()){
-                    cbxClienteOS.setSelectedIndex(i);
-                    break;
-                }
+            // Cliente (indice do combo pelo id, sem percorrer os itens)
+            Integer indiceCliente = indiceClienteCombo.get(osSelecionada.getCliente().getId());
+            if (indiceCliente != null) {
+                cbxClienteOS.setSelectedIndex(indiceCliente);
             }
 
             // Técnico
-            if(osSelecionada.getTecnico() != null){
-                for(int i=0; i<cbxTecnicoOS.getItemCount(); i++){
-                    Object item = cbxTecnicoOS.getItemAt(i);
-                    if(item != null && ((Tecnico)item).getId() == osSelecionada.getTecnico().getId()){
-                        cbxTecnicoOS.setSelectedIndex(i);
-                        break;
-                    }
-                }
+            Integer indiceTecnico = osSelecionada.getTecnico() != null
+                    ? indiceTecnicoCombo.get(osSelecionada.getTecnico().getId())
+                    : null;
+            if (indiceTecnico != null) {
+                cbxTecnicoOS.setSelectedIndex(indiceTecnico);
             } else {
                 cbxTecnicoOS.setSelectedItem(null);
             }
@@ -1464,10 +1517,7 @@ public class Principal extends javax.swing.JFrame {
             btnSalvarOS.setText("Atualizar");
             JOptionPane.showMessageDialog(this, "Modo Edição Ativado.");
 
-        } catch(Exception e) {
-            JOptionPane.showMessageDialog(this, "Erro ao editar: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }).exceptionally(e -> mostrarErro("Erro ao editar: ", e));
     }//GEN-LAST:event_btnEditarOSActionPerformed
 
     private void btnSalvarOSActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnSalvarOSActionPerformed
@@ -1503,19 +1553,22 @@ public class Principal extends javax.swing.JFrame {
             os.setValorMaoObra(Double.parseDouble(mao.isEmpty() ? "0" : mao));
             os.setValorPecas(Double.parseDouble(pecas.isEmpty() ? "0" : pecas));
 
-            if (osSelecionada == null) {
-                osDAO.adicionar(os);
-                JOptionPane.showMessageDialog(this, "O.S. criada!");
-            } else {
-                osDAO.atualizar(os);
-                JOptionPane.showMessageDialog(this, "O.S. atualizada!");
-            }
-
-            limparFormulariosOS();
-            atualizarTabelaOS();
-            atualizarRelatorios();
-            gerarGraficoStatusOS();
-            gerarGraficoValoresOS();
+            boolean nova = osSelecionada == null;
+            btnSalvarOS.setEnabled(false);
+            
+            DAOAssincrono.executarSemRetorno(() -> {
+                if (nova) {
+                    osDAO.adicionar(os);
+                } else {
+                    osDAO.atualizar(os);
+                }
+            }).thenRun(() -> {
+                JOptionPane.showMessageDialog(this, nova ? "O.S. criada!" : "O.S. atualizada!");
+                limparFormulariosOS();
+                atualizarTabelaOS();
+                atualizarRelatorios();
+            }).exceptionally(e -> mostrarErro("ERRO: ", e))
+              .whenComplete((v, e) -> btnSalvarOS.setEnabled(true));
 
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "ERRO: " + e.getMessage());
@@ -1555,8 +1608,10 @@ public class Principal extends javax.swing.JFrame {
 
         try {
             if (!listaTecnicos.isEmpty() && linha < listaTecnicos.size()){
-                idTecnico = listaTecnicos.get(linha).getId();
-                nomeTecnico = listaTecnicos.get(linha).getNome();
+                //com a pesquisa ativa a linha da tela nao e a posicao na lista
+                Tecnico t = listaTecnicos.get(tblTecnico.convertRowIndexToModel(linha));
+                idTecnico = t.getId();
+                nomeTecnico = t.getNome();
             } else {
                 idTecnico = (int) tblTecnico.getValueAt(linha, 0);
                 nomeTecnico = (String) tblTecnico.getValueAt(linha, 1);
@@ -1569,24 +1624,29 @@ public class Principal extends javax.swing.JFrame {
             "CONFIRMAÇÂO", JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try{
-                tecnicoDAO.excluir(idTecnico, usuarioLogado.getEmpresa().getId());
-
+            final int id = idTecnico;
+            int idEmpresa = usuarioLogado.getEmpresa().getId();
+            btnExcluirTecnico.setEnabled(false);
+            
+            DAOAssincrono.executarSemRetorno(() -> {
+                tecnicoDAO.excluir(id, idEmpresa);
+            }).thenRun(() -> {
                 atualizarTabelaTecnico();
                 preencherCombosOS();
                 limparFormularioTecnico();
-                
 
                 JOptionPane.showMessageDialog(this, "Excluido com sucesso");
-
-            } catch (SQLException e) {
-                JOptionPane.showMessageDialog(this,
-                    "Nao foi possivel excluir:\n" + e.getMessage(),
-                    "Aviso",
-                    JOptionPane.WARNING_MESSAGE);
-            } catch (Exception e){
-                JOptionPane.showMessageDialog(this, "ERRO ao excluir: " + e.getMessage());
-            }
+            }).exceptionally(e -> {
+                Throwable causa = DAOAssincrono.causa(e);
+                if (causa instanceof SQLException) {
+                    JOptionPane.showMessageDialog(this,
+                        "Nao foi possivel excluir:\n" + causa.getMessage(),
+                        "Aviso",
+                        JOptionPane.WARNING_MESSAGE);
+                    return null;
+                }
+                return mostrarErro("ERRO ao excluir: ", e);
+            }).whenComplete((v, e) -> btnExcluirTecnico.setEnabled(true));
         }
     }//GEN-LAST:event_btnExcluirTecnicoActionPerformed
 
@@ -1599,7 +1659,7 @@ public class Principal extends javax.swing.JFrame {
 
         //recupera o objeto completo da lista em memória
         try {
-            tecnicoSelecionado =listaTecnicos.get(linha);
+            tecnicoSelecionado =listaTecnicos.get(tblTecnico.convertRowIndexToModel(linha));
 
             //Preencher a tela
             txtNomeTecnico.setText(tecnicoSelecionado.getNome());
@@ -1682,27 +1742,34 @@ public class Principal extends javax.swing.JFrame {
             contato.setTelefone(txtTelefoneTecnico.getText());
             tecnico.setContato(contato);            
 
-            // 5. CHAMADA AO BANCO DE DADOS (DAO)
-            if (tecnicoSelecionado == null) {
-                // --- CADASTRAR NOVO ---
-                // Passamos a senha digitada
-                tecnicoDAO.adicionar(tecnico, senhaDigitada, usuarioLogado.getEmpresa().getId());
-                JOptionPane.showMessageDialog(this, "Técnico cadastrado com sucesso!");
-
-            } else {
-                // --- ATUALIZAR EXISTENTE ---
-                // Passamos a 'senhaDigitada'. O DAO deve ter a lógica:
-                // Se 'senhaDigitada' for vazia, mantém a do banco. Se tiver texto, atualiza.
-                tecnicoDAO.atualizar(tecnico, senhaDigitada);
-                JOptionPane.showMessageDialog(this, "Técnico atualizado com sucesso!");
-            }
+            // 5. CHAMADA AO BANCO DE DADOS (DAO), fora da EDT
+            boolean novo = tecnicoSelecionado == null;
+            String senha = senhaDigitada;
+            int idEmpresa = usuarioLogado.getEmpresa().getId();
+            btnSalvarTecnico.setEnabled(false);
+            
+            DAOAssincrono.executarSemRetorno(() -> {
+                if (novo) {
+                    // --- CADASTRAR NOVO ---
+                    // Passamos a senha digitada
+                    tecnicoDAO.adicionar(tecnico, senha, idEmpresa);
+                } else {
+                    // --- ATUALIZAR EXISTENTE ---
+                    // Passamos a 'senhaDigitada'. O DAO deve ter a lógica:
+                    // Se 'senhaDigitada' for vazia, mantém a do banco. Se tiver texto, atualiza.
+                    tecnicoDAO.atualizar(tecnico, senha);
+                }
+            }).thenRun(() -> {
+                JOptionPane.showMessageDialog(this, novo ? "Técnico cadastrado com sucesso!" : "Técnico atualizado com sucesso!");
 
-            // 6. LIMPEZA E ATUALIZAÇÃO DA TELA
-            limparFormularioTecnico();
-            atualizarTabelaTecnico();
+                // 6. LIMPEZA E ATUALIZAÇÃO DA TELA
+                limparFormularioTecnico();
+                atualizarTabelaTecnico();
 
-            // Se houver combos de OS dependentes deste técnico, atualize-os também
-            // preencherCombosOS(); 
+                // Se houver combos de OS dependentes deste técnico, atualize-os também
+                // preencherCombosOS(); 
+            }).exceptionally(e -> mostrarErro("ERRO ao salvar: ", e))
+              .whenComplete((v, e) -> btnSalvarTecnico.setEnabled(true));
 
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "ERRO ao salvar: " + e.getMessage());
@@ -1740,15 +1807,18 @@ public class Principal extends javax.swing.JFrame {
         int confirm = JOptionPane.showConfirmDialog(this, "Excluir Cliente? Todos os endereços dele também serão apagados.", "Excluir", JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                clienteDAO.excluir(id, usuarioLogado.getEmpresa().getId());
+            int idEmpresa = usuarioLogado.getEmpresa().getId();
+            btnExcluirCliente.setEnabled(false);
+            
+            DAOAssincrono.executarSemRetorno(() -> {
+                clienteDAO.excluir(id, idEmpresa);
+            }).thenRun(() -> {
                 atualizarTabelaClientes();
                 preencherCombosOS();
                 limparFormularioCliente();
                 JOptionPane.showMessageDialog(this, "Cliente e seus endereços excluídos.");
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this, "ERRO: " + e.getMessage());
-            }
+            }).exceptionally(e -> mostrarErro("ERRO: ", e))
+              .whenComplete((v, e) -> btnExcluirCliente.setEnabled(true));
         }
     }//GEN-LAST:event_btnExcluirClienteActionPerformed
 
@@ -1759,11 +1829,10 @@ public class Principal extends javax.swing.JFrame {
             return;
         }
 
-        try {
-            int idCliente = (int) tblCliente.getValueAt(linha, 0);
+        int idCliente = (int) tblCliente.getValueAt(linha, 0);
 
-            ClienteDAO clienteDAO = new ClienteDAO();
-            clienteSelecionado = clienteDAO.buscarPorId(idCliente);
+        DAOAssincrono.executar(() -> clienteDAO.buscarPorId(idCliente)).thenAccept(cliente -> {
+            clienteSelecionado = cliente;
 
             txtNomeCliente.setText(clienteSelecionado.getNome());
             txtCpfCliente.setText(clienteSelecionado.getCpf()); 
@@ -1772,9 +1841,7 @@ public class Principal extends javax.swing.JFrame {
 
             btnSalvarCliente.setText("Atualizar");
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Erro ao carregar cliente: " + e.getMessage());
-        }
+        }).exceptionally(e -> mostrarErro("Erro ao carregar cliente: ", e));
 
     }//GEN-LAST:event_btnEditarClienteActionPerformed
 
@@ -1803,17 +1870,26 @@ public class Principal extends javax.swing.JFrame {
             cliente.setContato(contato);
 
 
-            if (clienteSelecionado == null) {
-                clienteDAO.adicionar(cliente, usuarioLogado.getEmpresa().getId());
-                JOptionPane.showMessageDialog(this, "Cliente cadastrado! (Adicione endereços com duplo clique na tabela)");
-            } else {
-                clienteDAO.atualizar(cliente);
-                JOptionPane.showMessageDialog(this, "Cliente atualizado!");
-            }
+            boolean novo = clienteSelecionado == null;
+            int idEmpresa = usuarioLogado.getEmpresa().getId();
+            btnSalvarCliente.setEnabled(false);
+            
+            DAOAssincrono.executarSemRetorno(() -> {
+                if (novo) {
+                    clienteDAO.adicionar(cliente, idEmpresa);
+                } else {
+                    clienteDAO.atualizar(cliente);
+                }
+            }).thenRun(() -> {
+                JOptionPane.showMessageDialog(this, novo
+                        ? "Cliente cadastrado! (Adicione endereços com duplo clique na tabela)"
+                        : "Cliente atualizado!");
 
-            limparFormularioCliente();
-            atualizarTabelaClientes();
-            preencherCombosOS();
+                limparFormularioCliente();
+                atualizarTabelaClientes();
+                preencherCombosOS();
+            }).exceptionally(e -> mostrarErro("ERRO ao salvar: ", e))
+              .whenComplete((v, e) -> btnSalvarCliente.setEnabled(true));
 
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "ERRO ao salvar: " + e.getMessage());
@@ -1823,24 +1899,40 @@ public class Principal extends javax.swing.JFrame {
 
     private void btnImprimirActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnImprimirActionPerformed
                                                      
-        try {
-            Connection con = Conexao.getConexao();
-
-            // Parâmetros do relatório
-            Map<String, Object> parametro = new HashMap<>();
-            parametro.put("id_empresa", usuarioLogado.getEmpresa().getId()); 
-            // Se for relatório de OS específica:
-            // params.put("id_os", idDaOsSelecionada);
-
-            // Caminho do arquivo .jasper
-            String caminho = "src/main/resources/relatorios/relatorioOS.jasper";
+        // Parâmetros do relatório
+        int idEmpresa = usuarioLogado.getEmpresa().getId();
+        Map<String, Object> parametro = new HashMap<>();
+        parametro.put("id_empresa", idEmpresa); 
+        // Se for relatório de OS específica:
+        // params.put("id_os", idDaOsSelecionada);
+
+        // o relatorio nao roda a propria consulta: se a tabela ja tem todas as O.S.
+        // (todas as paginas carregadas sem erro), usa a copia dela; senao le o cursor
+        // do streamOS (na ordem da tabela)
+        ServicoRelatorios.FonteDados fonte;
+        if (modeloOS.isCompleta()) {
+            List<OrdemServico> carregadas = modeloOS.instantaneo();
+            fonte = () -> FonteDadosOS.daLista(carregadas);
+        } else {
+            fonte = () -> FonteDadosOS.doStream(osDAO.streamOS(idEmpresa));
+        }
 
-            RelatorioUtil.abrirPDF(caminho, parametro, con);
+        // preenche e exporta fora da EDT; a tela continua respondendo e o usuario pode cancelar
+        btnImprimir.setEnabled(false);
+        DialogoProgressoRelatorio dialogo = new DialogoProgressoRelatorio(this, "Relatório de O.S.");
+        ServicoRelatorios.Trabalho trabalho = ServicoRelatorios.gerarPDF(
+                RegistroRelatorios.RELATORIO_OS, parametro, fonte, dialogo::mostrar);
+        dialogo.acompanhar(trabalho);
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(null, "Erro ao gerar relatório: " + e.getMessage());
-        }
+        trabalho.getResultado().thenAccept(pdf -> {
+            try {
+                RelatorioUtil.abrirArquivo(pdf);
+            } catch (java.io.IOException e) {
+                JOptionPane.showMessageDialog(this, "PDF gerado em " + pdf.getAbsolutePath()
+                        + ", mas não foi possível abri-lo: " + e.getMessage());
+            }
+        }).exceptionally(e -> mostrarErro("Erro ao gerar relatório: ", e))
+          .whenComplete((r, e) -> btnImprimir.setEnabled(true));
 
     }//GEN-LAST:event_btnImprimirActionPerformed
 
@@ -1982,46 +2074,249 @@ public class Principal extends javax.swing.JFrame {
     }
     
     
-    private void preencherCombosOS() throws SQLException {
-        if (usuarioLogado == null) return;
-        int idEmpresa = usuarioLogado.getEmpresa().getId();
+    private void configurarCargaPorAba() {
+        timerPreCarga = new Timer(500, e -> {
+            int proxima = proximaAbaProvavel(jTabbedPane1.getSelectedIndex());
+            if (proxima >= 0) carregarAba(proxima);
+        });
+        timerPreCarga.setRepeats(false);
+        
+        jTabbedPane1.addChangeListener(e -> {
+            carregarAba(jTabbedPane1.getSelectedIndex());
+            timerPreCarga.restart();
+        });
+        
+        carregarAba(jTabbedPane1.getSelectedIndex());
+        timerPreCarga.restart();
+    }
+    
+    //primeira visita a aba: busca os dados dela (em segundo plano, pelo DAOAssincrono)
+    private void carregarAba(int aba) {
+        if (aba < 0 || aba >= jTabbedPane1.getTabCount()) return;
+        //aba desabilitada pelo perfil nunca vai ao banco
+        if (!jTabbedPane1.isEnabledAt(aba)) return;
+        if (!abasCarregadas.add(aba)) return;
         
-        cbxClienteOS.removeAllItems();
-        for (Cliente c : clienteDAO.listarTodos(idEmpresa)) {
-            cbxClienteOS.addItem(c);
+        switch (aba) {
+            case ABA_CLIENTES -> atualizarTabelaClientes();
+            case ABA_TECNICOS -> atualizarTabelaTecnico();
+            case ABA_OS -> {
+                preencherCombosOS();
+                atualizarTabelaOS();
+            }
+            case ABA_FINANCEIRO -> atualizarRelatorios();
+            default -> { }
         }
+    }
+    
+    //a proxima aba habilitada na ordem do menu (de cima para baixo), senao a anterior
+    private int proximaAbaProvavel(int atual) {
+        for (int i = atual + 1; i < jTabbedPane1.getTabCount(); i++) {
+            if (jTabbedPane1.isEnabledAt(i) && !abasCarregadas.contains(i)) return i;
+        }
+        for (int i = atual - 1; i >= 0; i--) {
+            if (jTabbedPane1.isEnabledAt(i) && !abasCarregadas.contains(i)) return i;
+        }
+        return -1;
+    }
+    
+    private boolean abaCarregada(int aba) {
+        return abasCarregadas.contains(aba);
+    }
+    
+    private record CombosOS(List<Cliente> clientes, List<Tecnico> tecnicos) {}
+    
+    private record DadosFinanceiro(DashboardStats painel, List<FaturamentoMensal> meses) {}
+    
+    private void preencherCombosOS() {
+        if (usuarioLogado == null || !abaCarregada(ABA_OS)) return;
+        int idEmpresa = usuarioLogado.getEmpresa().getId();
+        
+        cargaCombos.cancel(false);
+        CompletableFuture<CombosOS> carga = DAOAssincrono.executar(() ->
+                new CombosOS(clienteDAO.listarTodos(idEmpresa), tecnicoDAO.listarTodos(idEmpresa)));
+        cargaCombos = carga;
         
-        cbxTecnicoOS.removeAllItems();
-        cbxTecnicoOS.addItem(null);
-        for (Tecnico t : tecnicoDAO.listarTodos(idEmpresa)){
-            cbxTecnicoOS.addItem(t);
+        carga.thenAccept(combos -> {
+            //a recarga pode vir de um aviso no meio de uma edicao: mantem o que estava escolhido
+            Cliente clienteEscolhido = (Cliente) cbxClienteOS.getSelectedItem();
+            Tecnico tecnicoEscolhido = (Tecnico) cbxTecnicoOS.getSelectedItem();
+
+            cbxClienteOS.removeAllItems();
+            indiceClienteCombo.clear();
+            for (Cliente c : combos.clientes()) {
+                indiceClienteCombo.put(c.getId(), cbxClienteOS.getItemCount());
+                cbxClienteOS.addItem(c);
+            }
+
+            cbxTecnicoOS.removeAllItems();
+            indiceTecnicoCombo.clear();
+            cbxTecnicoOS.addItem(null);
+            for (Tecnico t : combos.tecnicos()){
+                indiceTecnicoCombo.put(t.getId(), cbxTecnicoOS.getItemCount());
+                cbxTecnicoOS.addItem(t);
+            }
+
+            cbxClienteOS.setSelectedIndex(clienteEscolhido == null ? -1
+                    : indiceClienteCombo.getOrDefault(clienteEscolhido.getId(), -1));
+            cbxTecnicoOS.setSelectedIndex(tecnicoEscolhido == null ? -1
+                    : indiceTecnicoCombo.getOrDefault(tecnicoEscolhido.getId(), 0));
+        }).exceptionally(e -> mostrarErro("ERRO ao carregar clientes e técnicos: ", e));
+    }
+    
+    //mostra o erro de uma chamada do DAOAssincrono (ja estamos na EDT); cancelamento nao e erro
+    private Void mostrarErro(String mensagem, Throwable erro) {
+        Throwable causa = DAOAssincrono.causa(erro);
+        if (!(causa instanceof CancellationException)) {
+            JOptionPane.showMessageDialog(this, mensagem + causa.getMessage());
         }
+        return null;
     }
     
-    private void atualizarTabelaOS() {
+    //passa a receber as mudancas feitas por outras sessoes da mesma empresa
+    private void iniciarOuvinteMudancas() {
         if (usuarioLogado == null) return;
         
-        DefaultTableModel modelo = (DefaultTableModel) tblRelatorioOS.getModel();
-        modelo.setNumRows(0);
+        timerDashboard = new Timer(400, e -> atualizarRelatorios());
+        timerDashboard.setRepeats(false);
         
-        try {
-            int idEmpresa = usuarioLogado.getEmpresa().getId();
-            List<OrdemServico> lista = osDAO.listarTabelaOS(idEmpresa);
-            
-            for (OrdemServico os : lista){
-                modelo.addRow(new Object[]{
-                    os.getId(),
-                    os.getCliente().getNome(),
-                    (os.getTecnico() != null ? os.getTecnico().getNome() : "Sem Técnico"),
-                    os.getStatus(),
-                    "R$ " + os.getValorTotal()
-                }); 
+        timerCadastros = new Timer(400, e -> {
+            atualizarTabelaClientes();
+            atualizarTabelaTecnico();
+            preencherCombosOS();
+        });
+        timerCadastros.setRepeats(false);
+        
+        //avisos de O.S. de uma mesma rajada viram uma unica consulta
+        timerOS = new Timer(150, e -> aplicarMudancasOS());
+        timerOS.setRepeats(false);
+        
+        OuvinteMudancas ouvinte = OuvinteMudancas.getInstancia();
+        //os caches dos DAOs precisam cair antes de a tela reler a linha
+        InvalidadorCaches.registrar(ouvinte);
+        ouvinteMudancas = this::aoMudar;
+        ouvinte.adicionarOuvinte(ouvinteMudancas);
+        ouvinte.iniciar();
+    }
+    
+    //roda na thread do ouvinte; O.S. so sao anotadas aqui e lidas juntas no aplicarMudancasOS
+    private void aoMudar(Mudanca m) {
+        int idEmpresa = usuarioLogado.getEmpresa().getId();
+        if (!m.isRessincronizacao() && m.idEmpresa() != idEmpresa) return;
+        
+        switch (m.tabela()) {
+            case Mudanca.OS -> {
+                //aba nunca aberta: ela ja vai ler o estado atual quando for
+                if (!abaCarregada(ABA_OS)) {
+                    SwingUtilities.invokeLater(timerDashboard::restart);
+                    return;
+                }
+                //o primeiro aviso da rajada liga o timer; os seguintes so entram no Set
+                boolean primeiro;
+                synchronized (osAlteradas) {
+                    primeiro = osAlteradas.isEmpty();
+                    osAlteradas.add(m.id());
+                }
+                if (primeiro) {
+                    SwingUtilities.invokeLater(timerOS::restart);
+                }
             }
-        } catch (SQLException e){
-            JOptionPane.showMessageDialog(this, "ERRO ao listar Os: " + e.getMessage());
+            case Mudanca.CLIENTES, Mudanca.TECNICOS -> SwingUtilities.invokeLater(timerCadastros::restart);
+            case Mudanca.TODAS -> SwingUtilities.invokeLater(() -> {
+                atualizarTabelaOS();
+                timerCadastros.restart();
+                timerDashboard.restart();
+            });
+            default -> { }
         }
     }
     
+    //EDT: aplica as O.S. avisadas na ultima rajada com um unico buscarPorIds.
+    //Id que nao volta da consulta foi excluido (ou saiu da empresa) e sai da tabela.
+    private void aplicarMudancasOS() {
+        List<Integer> ids;
+        synchronized (osAlteradas) {
+            ids = new ArrayList<>(osAlteradas);
+            osAlteradas.clear();
+        }
+        if (ids.isEmpty()) return;
+        
+        //totais: uma consulta agregada, refeita uma vez por rajada
+        timerDashboard.restart();
+        
+        //rajada maior que uma pagina (lote, importacao): mais barato reler a primeira pagina
+        if (ids.size() > ModeloTabelaOS.TAMANHO_PAGINA) {
+            atualizarTabelaOS();
+            return;
+        }
+        
+        int idEmpresa = usuarioLogado.getEmpresa().getId();
+        DAOAssincrono.executar(() -> osDAO.buscarPorIds(ids, idEmpresa)).whenComplete((lista, erro) -> {
+            if (erro != null) {
+                System.out.println("ERRO ao aplicar mudancas nas OS " + ids + " -> " + DAOAssincrono.causa(erro).getMessage());
+                return;
+            }
+            Map<Integer, OrdemServico> porId = new HashMap<>();
+            for (OrdemServico os : lista) {
+                porId.put(os.getId(), os);
+            }
+            for (int id : ids) {
+                OrdemServico os = porId.get(id);
+                if (os == null) {
+                    modeloOS.remover(id);
+                } else {
+                    modeloOS.aplicar(os);
+                }
+            }
+        });
+    }
+    
+    //troca o DefaultTableModel do form por um modelo que carrega as O.S. por paginas
+    private void configurarTabelaOS() {
+        int idEmpresa = usuarioLogado.getEmpresa().getId();
+        
+        modeloOS = new ModeloTabelaOS(
+            (cursor, tamanho) -> osDAO.listarPaginaOS(idEmpresa, cursor, tamanho),
+            e -> JOptionPane.showMessageDialog(this, "ERRO ao listar Os: " + e.getMessage())
+        );
+        tblRelatorioOS.setModel(modeloOS);
+        ModeloTabelaOS.instalarFormatacao(tblRelatorioOS);
+        modeloOS.instalarRolagem(jScrollPane2, tblRelatorioOS.getRowHeight());
+    }
+    
+    //pesquisa instantanea nas linhas ja carregadas das tres tabelas
+    private void configurarPesquisa() {
+        FiltroTabela.instalar(tblRelatorioOS, jScrollPane2, modeloOS::getTextoBusca);
+        FiltroTabela.instalar(tblCliente, jScrollPane3, linha -> textoDaLinha(tblCliente.getModel(), linha));
+        FiltroTabela.instalar(tblTecnico, jScrollPane1, linha -> textoDaLinha(tblTecnico.getModel(), linha));
+    }
+    
+    private static String textoDaLinha(TableModel modelo, int linha) {
+        StringBuilder texto = new StringBuilder();
+        for (int coluna = 0; coluna < modelo.getColumnCount(); coluna++) {
+            texto.append(modelo.getValueAt(linha, coluna)).append(' ');
+        }
+        return texto.toString();
+    }
+    
+    //troca todas as linhas com um unico evento: um addRow por linha faria o
+    //FiltroTabela e o ordenador reprocessarem a tabela a cada cliente/tecnico
+    private static void substituirLinhas(DefaultTableModel modelo, List<Object[]> linhas) {
+        Vector<Vector> dados = modelo.getDataVector();
+        dados.clear();
+        for (Object[] linha : linhas) {
+            dados.add(new Vector<>(Arrays.asList(linha)));
+        }
+        modelo.fireTableDataChanged();
+    }
+    
+    private void atualizarTabelaOS() {
+        if (usuarioLogado == null || !abaCarregada(ABA_OS)) return;
+        
+        //volta para a primeira pagina; as demais vem conforme a rolagem
+        modeloOS.recarregar();
+    }
+    
     private void limparFormulariosOS() {
         osSelecionada = null;
         cbxClienteOS.setSelectedIndex(-1);
@@ -2037,17 +2332,20 @@ public class Principal extends javax.swing.JFrame {
     }
     
     private void atualizarTabelaClientes() {
-        if (usuarioLogado == null) return;
+        if (usuarioLogado == null || !abaCarregada(ABA_CLIENTES)) return;
         
-        DefaultTableModel modelo = (DefaultTableModel) tblCliente.getModel();
-        modelo.setNumRows(0);
+        int idEmpresa = usuarioLogado.getEmpresa().getId();
         
-        try {
-            int idEmpresa = usuarioLogado.getEmpresa().getId();
-            listaClientes = clienteDAO.listarTodos(idEmpresa);
+        cargaClientes.cancel(false);
+        CompletableFuture<List<Cliente>> carga = DAOAssincrono.executar(() -> clienteDAO.listarTodos(idEmpresa));
+        cargaClientes = carga;
+        
+        carga.thenAccept(lista -> {
+            listaClientes = lista;
             
+            List<Object[]> linhas = new ArrayList<>(listaClientes.size());
             for (Cliente c : listaClientes) {
-                modelo.addRow(new Object[]{
+                linhas.add(new Object[]{
                     c.getId(),
                     c.getNome(),
                     c.getContato().getTelefone(),
@@ -2056,9 +2354,8 @@ public class Principal extends javax.swing.JFrame {
                     c.getEndereco().getCidade()
                 });
             }
-        } catch (SQLException e){
-            JOptionPane.showMessageDialog(this, "ERRO ao listar Clientes: " + e.getMessage());   
-        }
+            substituirLinhas((DefaultTableModel) tblCliente.getModel(), linhas);
+        }).exceptionally(e -> mostrarErro("ERRO ao listar Clientes: ", e));
     }
     
     private void limparFormularioCliente(){
@@ -2077,19 +2374,21 @@ public class Principal extends javax.swing.JFrame {
     }
 
     private void atualizarTabelaTecnico() {
-        if (usuarioLogado == null) return;
+        if (usuarioLogado == null || !abaCarregada(ABA_TECNICOS)) return;
         
-        DefaultTableModel modelo = (DefaultTableModel) tblTecnico.getModel();
-        modelo.setNumRows(0);
+        int idEmpresa = usuarioLogado.getEmpresa().getId();
         
-        try {
-            int idEmpresa = usuarioLogado.getEmpresa().getId();
-            
+        cargaTecnicos.cancel(false);
+        CompletableFuture<List<Tecnico>> carga = DAOAssincrono.executar(() -> tecnicoDAO.listarTodos(idEmpresa));
+        cargaTecnicos = carga;
+        
+        carga.thenAccept(lista -> {
             //guarda lista em memoria para edição
-            listaTecnicos = tecnicoDAO.listarTodos(idEmpresa);
+            listaTecnicos = lista;
             
+            List<Object[]> linhas = new ArrayList<>(listaTecnicos.size());
             for (Tecnico t : listaTecnicos) {
-                modelo.addRow(new Object[]{
+                linhas.add(new Object[]{
                     t.getId(),
                     t.getNome(),
                     t.getContato().getTelefone(),
@@ -2097,9 +2396,8 @@ public class Principal extends javax.swing.JFrame {
                     t.getEspecialidade()
                 });
             }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "ERRO ao listar Técnicos: " + e.getMessage());
-        }
+            substituirLinhas((DefaultTableModel) tblTecnico.getModel(), linhas);
+        }).exceptionally(e -> mostrarErro("ERRO ao listar Técnicos: ", e));
     }
     
     private void limparFormularioTecnico() {
@@ -2119,32 +2417,43 @@ public class Principal extends javax.swing.JFrame {
     }
     
     public void atualizarRelatorios(){
-        if (usuarioLogado == null) return;
+        if (usuarioLogado == null || !abaCarregada(ABA_FINANCEIRO)) return;
         
-        try {
-            int idEmpresa = usuarioLogado.getEmpresa().getId();
-            
-            //chama o metodo do dao
-            double[] dados = osDAO.carregarDadosRelatorio(idEmpresa);
+        int idEmpresa = usuarioLogado.getEmpresa().getId();
+        
+        //painel (uma consulta, com cache curto) e faturamento por mes (tabela resumo), fora da EDT
+        cargaRelatorios.cancel(false);
+        CompletableFuture<DadosFinanceiro> carga = DAOAssincrono.executar(() -> new DadosFinanceiro(
+                osDAO.carregarDadosRelatorio(idEmpresa),
+                osDAO.listarFaturamentoMensal(idEmpresa, MESES_FATURAMENTO)));
+        cargaRelatorios = carga;
+        
+        carga.thenAccept(financeiro -> {
+            DashboardStats dados = financeiro.painel();
             
             //formatacao para dinheiro
             java.text.NumberFormat nf = java.text.NumberFormat.getCurrencyInstance(new java.util.Locale("pt", "BR"));
         
             //Preencher as Labels
-            lblTotalAbertas.setText(String.valueOf((int)dados[0]));
-            lblTotalAndamento.setText(String.valueOf((int)dados[1]));
-            lblTotalConcluidas.setText(String.valueOf((int)dados[2]));
-            lblTotalCanceladas.setText(String.valueOf((int) dados[5]));
+            lblTotalAbertas.setText(String.valueOf(dados.totalAbertas()));
+            lblTotalAndamento.setText(String.valueOf(dados.totalEmAndamento()));
+            lblTotalConcluidas.setText(String.valueOf(dados.totalConcluidas()));
+            lblTotalCanceladas.setText(String.valueOf(dados.totalCanceladas()));
             
-            valorTotalOS = dados[3];
-            valorPendenteOS = dados[4];
+            valorTotalOS = dados.valorFaturado();
+            valorPendenteOS = dados.valorPendente();
             
             lblValorTotal.setText(nf.format(valorTotalOS));
             lblValorPendente.setText(nf.format(valorPendenteOS));
             
-        } catch (Exception e) {
-            System.out.println("ERRO ao atualizar relatorios: " + e.getMessage());
-        }
+            gerarGraficoStatusOS();
+            gerarGraficoValoresOS();
+            gerarGraficoFaturamentoMensal(financeiro.meses());
+            
+        }).exceptionally(e -> {
+            System.out.println("ERRO ao atualizar relatorios: " + DAOAssincrono.causa(e).getMessage());
+            return null;
+        });
     }
     
     
@@ -2219,11 +2528,49 @@ public class Principal extends javax.swing.JFrame {
         chartPanel.setMouseWheelEnabled(true);
         chartPanel.setPreferredSize(panelGraficoTotalValor.getSize());
 
-        panelGraficoTotalValor.removeAll();
-        panelGraficoTotalValor.setLayout(new BorderLayout());
-        panelGraficoTotalValor.add(chartPanel, BorderLayout.CENTER);
-        panelGraficoTotalValor.revalidate();
-        panelGraficoTotalValor.repaint();
+        abasGraficoValores().setComponentAt(0, chartPanel);
+    }
+    
+    public void gerarGraficoFaturamentoMensal(List<FaturamentoMensal> meses) {
+        DateTimeFormatter fmtMes = DateTimeFormatter.ofPattern("MM/yyyy");
+        
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        for (FaturamentoMensal mes : meses) {
+            dataset.addValue(mes.valorTotal(), "Faturado", mes.mes().format(fmtMes));
+        }
+        
+        JFreeChart chart = ChartFactory.createBarChart(
+            "Faturamento Mensal (O.S Concluídas)",
+            "Mês",
+            "R$",
+            dataset,
+            PlotOrientation.VERTICAL,
+            false,
+            true,
+            false
+        );
+        
+        ChartPanel chartPanel = new ChartPanel(chart);
+        chartPanel.setMouseWheelEnabled(true);
+        chartPanel.setPreferredSize(panelGraficoTotalValor.getSize());
+        
+        abasGraficoValores().setComponentAt(1, chartPanel);
+    }
+    
+    //o layout do form tem lugar para dois graficos: o segundo vira abas
+    private JTabbedPane abasGraficoValores() {
+        if (abasGraficoValores == null) {
+            abasGraficoValores = new JTabbedPane();
+            abasGraficoValores.addTab("Faturado x Pendente", new javax.swing.JPanel());
+            abasGraficoValores.addTab("Por Mês", new javax.swing.JPanel());
+            
+            panelGraficoTotalValor.removeAll();
+            panelGraficoTotalValor.setLayout(new BorderLayout());
+            panelGraficoTotalValor.add(abasGraficoValores, BorderLayout.CENTER);
+            panelGraficoTotalValor.revalidate();
+            panelGraficoTotalValor.repaint();
+        }
+        return abasGraficoValores;
     }
 
     
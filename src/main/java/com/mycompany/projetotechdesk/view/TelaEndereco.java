@@ -6,8 +6,8 @@ package com.mycompany.projetotechdesk.view;
 
 import com.mycompany.projetotechdesk.Model.Cliente;
 import com.mycompany.projetotechdesk.Model.Endereco;
+import com.mycompany.projetotechdesk.dao.DAOAssincrono;
 import com.mycompany.projetotechdesk.dao.EnderecoDAO;
-import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.table.DefaultTableModel;
 
@@ -317,21 +317,31 @@ public class TelaEndereco extends javax.swing.JFrame {
             }
             e.setCep(txtCep.getText());
 
-            if (modoEdicao == false) {
-                // ---- NOVO ----
-                dao.adicionar(e, idUsuario);
-                JOptionPane.showMessageDialog(null, "Endereço salvo com sucesso!");
-            } else {
-                // ---- ATUALIZAR ----
+            boolean novo = modoEdicao == false;
+            if (!novo) {
                 e.setId(Integer.parseInt(enderecoSelecionado));
-                dao.atualizar(e);
-                JOptionPane.showMessageDialog(null, "Endereço atualizado com sucesso!");
             }
+            btnSalvar.setEnabled(false);
             
-            limpar();          // Limpa a tela APÓS salvar
-            atualizarTabela(); // Recarrega a tabela com os dados novos
-            modoEdicao = false;
-            btnSalvar.setText("Salvar");
+            DAOAssincrono.executarSemRetorno(() -> {
+                if (novo) {
+                    // ---- NOVO ----
+                    dao.adicionar(e, idUsuario);
+                } else {
+                    // ---- ATUALIZAR ----
+                    dao.atualizar(e);
+                }
+            }).thenRun(() -> {
+                JOptionPane.showMessageDialog(null, novo ? "Endereço salvo com sucesso!" : "Endereço atualizado com sucesso!");
+                
+                limpar();          // Limpa a tela APÓS salvar
+                atualizarTabela(); // Recarrega a tabela com os dados novos
+                modoEdicao = false;
+                btnSalvar.setText("Salvar");
+            }).exceptionally(ex -> {
+                JOptionPane.showMessageDialog(null, "Erro ao salvar: " + DAOAssincrono.causa(ex).getMessage());
+                return null;
+            }).whenComplete((v, ex) -> btnSalvar.setEnabled(true));
             
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(null, "Erro ao salvar: " + ex.getMessage());
@@ -429,20 +439,21 @@ public class TelaEndereco extends javax.swing.JFrame {
         // 3. Captura o ID da linha selecionada (considerando que coluna 0 é o ID)
         int idEndereco = (int) tblEnderecos.getValueAt(row, 0);
 
-        try {
-            // 4. Chamar o controller para excluir
-            EnderecoDAO dao = new EnderecoDAO();
+        // 4. Chamar o controller para excluir (fora da EDT)
+        btnExcluir.setEnabled(false);
+        
+        DAOAssincrono.executarSemRetorno(() -> {
             dao.excluir(idEndereco);
-
+        }).thenRun(() -> {
             // 5. Atualizar tabela
             atualizarTabela();
 
             JOptionPane.showMessageDialog(this, "Endereço excluído com sucesso!");
-
-        } catch (Exception e) {
+        }).exceptionally(e -> {
             JOptionPane.showMessageDialog(this, 
-                "Erro ao excluir: " + e.getMessage());
-        }
+                "Erro ao excluir: " + DAOAssincrono.causa(e).getMessage());
+            return null;
+        }).whenComplete((v, e) -> btnExcluir.setEnabled(true));
     }//GEN-LAST:event_btnExcluirActionPerformed
 
     private void btnFecharEnderecoActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnFecharEnderecoActionPerformed
@@ -511,9 +522,7 @@ public class TelaEndereco extends javax.swing.JFrame {
     }
 
    private void atualizarTabela() {
-        try {
-            List<Endereco> lista = dao.listarPorUsuario(idUsuario);
-
+        DAOAssincrono.executar(() -> dao.listarPorUsuario(idUsuario)).thenAccept(lista -> {
             // AQUI ESTÁ O SEGREDO: Criamos o modelo sobrescrevendo o isCellEditable
             // Isso garante que NENHUMA célula seja editável, nunca.
             DefaultTableModel model = new DefaultTableModel(
@@ -543,9 +552,10 @@ public class TelaEndereco extends javax.swing.JFrame {
 
             tblEnderecos.setModel(model);
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(null, "Erro ao carregar tabela: " + e.getMessage());
-        }
+        }).exceptionally(e -> {
+            JOptionPane.showMessageDialog(null, "Erro ao carregar tabela: " + DAOAssincrono.causa(e).getMessage());
+            return null;
+        });
     }
     
 }
@@ -0,0 +1,17 @@
+-- Índices das consultas de O.S. (ProjetoTechDeskBanco.sql só tinha PKs e UNIQUEs)
+
+-- Listagem paginada por chave: WHERE id_empresa = ? ORDER BY data_entrada DESC, id DESC LIMIT ?
+CREATE INDEX IF NOT EXISTS idx_os_empresa_entrada
+    ON tbl_ordens_servico (id_empresa, data_entrada DESC, id DESC);
+
+-- Painel: contagens e somas por status da empresa sem ler a tabela (index-only scan)
+CREATE INDEX IF NOT EXISTS idx_os_empresa_status
+    ON tbl_ordens_servico (id_empresa, status) INCLUDE (valor_total);
+
+-- Exclusão de técnico: O.S. ativas do técnico e desvínculo (id_tecnico = ?)
+CREATE INDEX IF NOT EXISTS idx_os_tecnico_status
+    ON tbl_ordens_servico (id_tecnico, status);
+
+-- FK sem índice: excluir cliente varria a tabela de O.S. para checar a referência
+CREATE INDEX IF NOT EXISTS idx_os_cliente
+    ON tbl_ordens_servico (id_cliente);
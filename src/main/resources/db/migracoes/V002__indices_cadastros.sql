@@ -0,0 +1,17 @@
+-- Índices dos cadastros (clientes, técnicos, usuários e endereços)
+
+-- TelaEndereco: WHERE id_usuario = ? (e o ON DELETE CASCADE vindo de tbl_usuarios)
+CREATE INDEX IF NOT EXISTS idx_enderecos_usuario
+    ON tbl_enderecos (id_usuario);
+
+-- Lista de clientes: WHERE id_empresa = ? ORDER BY nome
+CREATE INDEX IF NOT EXISTS idx_clientes_empresa_nome
+    ON tbl_clientes (id_empresa, nome);
+
+-- Lista de técnicos: WHERE id_empresa = ?
+CREATE INDEX IF NOT EXISTS idx_tecnicos_empresa
+    ON tbl_tecnicos (id_empresa);
+
+-- FK sem índice: ON DELETE CASCADE de tbl_empresas
+CREATE INDEX IF NOT EXISTS idx_usuarios_empresa
+    ON tbl_usuarios (id_empresa);
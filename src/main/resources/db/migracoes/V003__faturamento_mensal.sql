@@ -0,0 +1,69 @@
+-- Faturamento mensal mantido por trigger, no lugar da view materializada
+-- (que só mudava com um REFRESH manual e relia a tabela inteira de O.S.).
+-- Mesma regra da view: O.S. 'Concluida' com data_saida, agrupada pelo mês da saída.
+
+CREATE TABLE IF NOT EXISTS tbl_faturamento_mensal (
+    id_empresa INT NOT NULL REFERENCES tbl_empresas(id) ON DELETE CASCADE,
+    mes DATE NOT NULL, -- primeiro dia do mês
+    total_os INT NOT NULL DEFAULT 0,
+    valor_total DECIMAL(14, 2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (id_empresa, mes)
+);
+
+-- Tira a contribuição da versão antiga da O.S. e soma a da nova.
+-- AFTER: o valor_total já vem calculado pelo trg_calcula_total_os.
+CREATE OR REPLACE FUNCTION fn_atualiza_faturamento_mensal()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        IF OLD.status = 'Concluida' AND OLD.data_saida IS NOT NULL THEN
+            UPDATE tbl_faturamento_mensal
+               SET total_os = total_os - 1,
+                   valor_total = valor_total - OLD.valor_total
+             WHERE id_empresa = OLD.id_empresa
+               AND mes = date_trunc('month', OLD.data_saida)::date;
+        END IF;
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        IF NEW.status = 'Concluida' AND NEW.data_saida IS NOT NULL THEN
+            INSERT INTO tbl_faturamento_mensal (id_empresa, mes, total_os, valor_total)
+            VALUES (NEW.id_empresa, date_trunc('month', NEW.data_saida)::date, 1, NEW.valor_total)
+            ON CONFLICT (id_empresa, mes) DO UPDATE
+               SET total_os = tbl_faturamento_mensal.total_os + 1,
+                   valor_total = tbl_faturamento_mensal.valor_total + EXCLUDED.valor_total;
+        END IF;
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_faturamento_mensal_ins_del ON tbl_ordens_servico;
+CREATE TRIGGER trg_faturamento_mensal_ins_del
+AFTER INSERT OR DELETE ON tbl_ordens_servico
+FOR EACH ROW EXECUTE FUNCTION fn_atualiza_faturamento_mensal();
+
+-- Edições que não mexem em status, valor, saída ou empresa nem chamam a função
+DROP TRIGGER IF EXISTS trg_faturamento_mensal_upd ON tbl_ordens_servico;
+CREATE TRIGGER trg_faturamento_mensal_upd
+AFTER UPDATE ON tbl_ordens_servico
+FOR EACH ROW
+WHEN (OLD.status IS DISTINCT FROM NEW.status
+   OR OLD.valor_total IS DISTINCT FROM NEW.valor_total
+   OR OLD.data_saida IS DISTINCT FROM NEW.data_saida
+   OR OLD.id_empresa IS DISTINCT FROM NEW.id_empresa)
+EXECUTE FUNCTION fn_atualiza_faturamento_mensal();
+
+-- Carga inicial. O CREATE TRIGGER acima já travou a tabela de O.S. contra
+-- escrita até o fim desta transação, então nada escapa entre a carga e os triggers.
+INSERT INTO tbl_faturamento_mensal (id_empresa, mes, total_os, valor_total)
+SELECT id_empresa, date_trunc('month', data_saida)::date, COUNT(*), SUM(valor_total)
+  FROM tbl_ordens_servico
+ WHERE status = 'Concluida' AND data_saida IS NOT NULL
+ GROUP BY id_empresa, date_trunc('month', data_saida)::date
+ON CONFLICT (id_empresa, mes) DO UPDATE
+   SET total_os = EXCLUDED.total_os,
+       valor_total = EXCLUDED.valor_total;
+
+DROP MATERIALIZED VIEW IF EXISTS vw_materialized_faturamento_mensal;
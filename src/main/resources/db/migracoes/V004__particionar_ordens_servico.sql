@@ -0,0 +1,206 @@
+-- tbl_ordens_servico particionada por ano de data_entrada.
+-- Listagens recentes e relatórios por período só leem as partições do período;
+-- anos encerrados podem sair do banco principal com sp_arquivar_particao_os.
+-- Requer PostgreSQL 13+ (trigger BEFORE em tabela particionada).
+
+-- 1. Tira a tabela atual do caminho (a view depende dela e é recriada no fim)
+DROP VIEW IF EXISTS vw_detalhes_os;
+ALTER TABLE tbl_ordens_servico RENAME TO tbl_ordens_servico_antiga;
+
+-- 2. Tabela particionada. A PK precisa conter a chave de partição; o id continua
+--    vindo da mesma sequence, então segue único na prática.
+CREATE TABLE tbl_ordens_servico (
+    id INT NOT NULL DEFAULT nextval('tbl_ordens_servico_id_seq'),
+    id_empresa INT NOT NULL REFERENCES tbl_empresas(id),
+    id_cliente INT NOT NULL REFERENCES tbl_clientes(id),
+    id_tecnico INT REFERENCES tbl_tecnicos(id), -- Pode ser NULL
+    descricao_problema TEXT,
+    status VARCHAR(50) DEFAULT 'Aberta',
+    data_entrada DATE NOT NULL DEFAULT CURRENT_DATE,
+    data_saida DATE,
+    valor_mao_obra DECIMAL(10, 2) DEFAULT 0.00 CHECK (valor_mao_obra >= 0),
+    valor_pecas DECIMAL(10, 2) DEFAULT 0.00 CHECK (valor_pecas >= 0),
+    valor_total DECIMAL(10, 2) DEFAULT 0.00 CHECK (valor_total >= 0),
+    busca_descricao TSVECTOR GENERATED ALWAYS AS
+        (to_tsvector('portuguese', coalesce(descricao_problema, ''))) STORED,
+    CONSTRAINT pk_ordens_servico PRIMARY KEY (id, data_entrada)
+) PARTITION BY RANGE (data_entrada);
+
+-- sem isso o DROP da tabela antiga levaria a sequence junto
+ALTER SEQUENCE tbl_ordens_servico_id_seq OWNED BY tbl_ordens_servico.id;
+
+-- Datas fora dos anos criados (ex.: digitadas erradas) caem aqui em vez de dar erro
+CREATE TABLE tbl_ordens_servico_padrao PARTITION OF tbl_ordens_servico DEFAULT;
+
+-- 3. Cria a partição de um ano, se ainda não existe. Se a padrão já tiver O.S.
+--    desse ano, elas são movidas para a partição nova (DELETE + INSERT pela
+--    tabela mãe, então triggers de faturamento e avisos continuam coerentes).
+CREATE OR REPLACE FUNCTION fn_garantir_particao_os(p_ano INT)
+RETURNS BOOLEAN AS $$
+DECLARE
+    v_nome TEXT := 'tbl_ordens_servico_' || p_ano;
+    v_inicio DATE := make_date(p_ano, 1, 1);
+    v_fim DATE := make_date(p_ano + 1, 1, 1);
+    v_mover BOOLEAN;
+BEGIN
+    IF to_regclass('public.' || v_nome) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    SELECT EXISTS (SELECT 1 FROM tbl_ordens_servico_padrao
+                    WHERE data_entrada >= v_inicio AND data_entrada < v_fim)
+      INTO v_mover;
+
+    IF v_mover THEN
+        DROP TABLE IF EXISTS tmp_mover_os;
+        CREATE TEMP TABLE tmp_mover_os ON COMMIT DROP AS
+            SELECT id, id_empresa, id_cliente, id_tecnico, descricao_problema, status,
+                   data_entrada, data_saida, valor_mao_obra, valor_pecas
+              FROM tbl_ordens_servico_padrao
+             WHERE data_entrada >= v_inicio AND data_entrada < v_fim;
+        DELETE FROM tbl_ordens_servico
+         WHERE data_entrada >= v_inicio AND data_entrada < v_fim;
+    END IF;
+
+    EXECUTE format('CREATE TABLE public.%I PARTITION OF tbl_ordens_servico FOR VALUES FROM (%L) TO (%L)',
+                   v_nome, v_inicio, v_fim);
+
+    IF v_mover THEN
+        INSERT INTO tbl_ordens_servico (id, id_empresa, id_cliente, id_tecnico, descricao_problema, status,
+                                        data_entrada, data_saida, valor_mao_obra, valor_pecas)
+        SELECT * FROM tmp_mover_os;
+        DROP TABLE tmp_mover_os;
+    END IF;
+
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partições do ano atual e dos próximos p_anos_a_frente (o programa chama ao iniciar).
+-- Devolve quantas foram criadas.
+CREATE OR REPLACE FUNCTION fn_criar_particoes_futuras_os(p_anos_a_frente INT DEFAULT 1)
+RETURNS INT AS $$
+DECLARE
+    v_ano_atual INT := extract(year FROM CURRENT_DATE)::INT;
+    v_criadas INT := 0;
+BEGIN
+    FOR v_ano IN v_ano_atual .. v_ano_atual + p_anos_a_frente LOOP
+        IF fn_garantir_particao_os(v_ano) THEN
+            v_criadas := v_criadas + 1;
+        END IF;
+    END LOOP;
+    RETURN v_criadas;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Desanexa um ano encerrado e o move para o schema "arquivo": some das telas,
+-- índices e vacuum do banco principal, mas continua consultável (e pronto para
+-- pg_dump/DROP). O faturamento mensal já resumido não é afetado.
+CREATE OR REPLACE PROCEDURE sp_arquivar_particao_os(p_ano INT)
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_nome TEXT := 'tbl_ordens_servico_' || p_ano;
+    v_abertas BOOLEAN;
+BEGIN
+    IF p_ano >= extract(year FROM CURRENT_DATE) THEN
+        RAISE EXCEPTION 'Só anos já encerrados podem ser arquivados (%).', p_ano;
+    END IF;
+    IF to_regclass('public.' || v_nome) IS NULL THEN
+        RAISE EXCEPTION 'Partição % não existe.', v_nome;
+    END IF;
+
+    EXECUTE format('SELECT EXISTS (SELECT 1 FROM public.%I WHERE status NOT IN (''Concluida'', ''Cancelada''))', v_nome)
+       INTO v_abertas;
+    IF v_abertas THEN
+        RAISE EXCEPTION 'O ano % ainda tem O.S. abertas; conclua ou cancele antes de arquivar.', p_ano;
+    END IF;
+
+    CREATE SCHEMA IF NOT EXISTS arquivo;
+    EXECUTE format('ALTER TABLE tbl_ordens_servico DETACH PARTITION public.%I', v_nome);
+    EXECUTE format('ALTER TABLE public.%I SET SCHEMA arquivo', v_nome);
+END;
+$$;
+
+-- 4. Partições dos anos que já têm O.S. e dos próximos, depois a cópia dos dados
+SELECT fn_garantir_particao_os(ano)
+  FROM (SELECT DISTINCT extract(year FROM COALESCE(data_entrada, data_saida, CURRENT_DATE))::INT AS ano
+          FROM tbl_ordens_servico_antiga) anos;
+SELECT fn_criar_particoes_futuras_os(1);
+
+INSERT INTO tbl_ordens_servico (id, id_empresa, id_cliente, id_tecnico, descricao_problema, status,
+                                data_entrada, data_saida, valor_mao_obra, valor_pecas, valor_total)
+SELECT id, id_empresa, id_cliente, id_tecnico, descricao_problema, status,
+       COALESCE(data_entrada, data_saida, CURRENT_DATE), data_saida, valor_mao_obra, valor_pecas, valor_total
+  FROM tbl_ordens_servico_antiga;
+
+DROP TABLE tbl_ordens_servico_antiga;
+
+-- 5. Índices (criados na mãe, replicados em cada partição)
+CREATE INDEX idx_os_busca_descricao ON tbl_ordens_servico USING GIN (busca_descricao);
+CREATE INDEX idx_os_empresa_entrada ON tbl_ordens_servico (id_empresa, data_entrada DESC, id DESC);
+CREATE INDEX idx_os_empresa_status ON tbl_ordens_servico (id_empresa, status) INCLUDE (valor_total);
+CREATE INDEX idx_os_tecnico_status ON tbl_ordens_servico (id_tecnico, status);
+CREATE INDEX idx_os_cliente ON tbl_ordens_servico (id_cliente);
+
+-- 6. Triggers. Em tabela particionada o trigger roda na partição e TG_TABLE_NAME
+--    vira o nome dela; o aviso passa a receber o nome lógico como argumento.
+CREATE OR REPLACE FUNCTION fn_notifica_mudanca()
+RETURNS TRIGGER AS $$
+DECLARE
+    v_id INT;
+    v_id_empresa INT;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        v_id := OLD.id;
+        v_id_empresa := OLD.id_empresa;
+    ELSE
+        v_id := NEW.id;
+        v_id_empresa := NEW.id_empresa;
+    END IF;
+
+    PERFORM pg_notify('techdesk_mudancas',
+        COALESCE(TG_ARGV[0], TG_TABLE_NAME) || '|' || TG_OP || '|' || v_id || '|' || v_id_empresa);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_calcula_total_os
+BEFORE INSERT OR UPDATE ON tbl_ordens_servico
+FOR EACH ROW EXECUTE FUNCTION fn_calcula_total_os();
+
+CREATE TRIGGER trg_notifica_ordens_servico
+AFTER INSERT OR UPDATE OR DELETE ON tbl_ordens_servico
+FOR EACH ROW EXECUTE FUNCTION fn_notifica_mudanca('tbl_ordens_servico');
+
+CREATE TRIGGER trg_faturamento_mensal_ins_del
+AFTER INSERT OR DELETE ON tbl_ordens_servico
+FOR EACH ROW EXECUTE FUNCTION fn_atualiza_faturamento_mensal();
+
+CREATE TRIGGER trg_faturamento_mensal_upd
+AFTER UPDATE ON tbl_ordens_servico
+FOR EACH ROW
+WHEN (OLD.status IS DISTINCT FROM NEW.status
+   OR OLD.valor_total IS DISTINCT FROM NEW.valor_total
+   OR OLD.data_saida IS DISTINCT FROM NEW.data_saida
+   OR OLD.id_empresa IS DISTINCT FROM NEW.id_empresa)
+EXECUTE FUNCTION fn_atualiza_faturamento_mensal();
+
+-- 7. View de detalhes, igual à anterior
+CREATE OR REPLACE VIEW vw_detalhes_os AS
+SELECT 
+    os.id AS id_os,
+    os.status,
+    os.data_entrada,
+    os.data_saida,
+    os.descricao_problema,
+    os.valor_mao_obra,
+    os.valor_pecas,
+    os.valor_total,
+    os.id_empresa,
+    c.id AS id_cliente,
+    c.nome AS nome_cliente,
+    t.id AS id_tecnico,
+    t.nome AS nome_tecnico
+FROM tbl_ordens_servico os
+JOIN tbl_clientes c ON os.id_cliente = c.id
+LEFT JOIN tbl_tecnicos t ON os.id_tecnico = t.id;
@@ -0,0 +1,161 @@
+-- Trilha de auditoria de O.S., clientes, técnicos e endereços (antes/depois em JSON).
+-- Substitui o trg_log_delete_cliente; a tbl_log_auditoria antiga fica só com o histórico.
+--
+-- Triggers por comando (FOR EACH STATEMENT + tabelas de transição): um único
+-- INSERT ... SELECT na auditoria por comando, seja 1 linha ou um lote de 500,
+-- dentro da mesma transação (sem ida extra ao banco e sem evento perdido).
+
+CREATE TABLE IF NOT EXISTS tbl_auditoria (
+    id BIGSERIAL,
+    data_evento TIMESTAMP NOT NULL DEFAULT now(),
+    tabela VARCHAR(63) NOT NULL,
+    operacao VARCHAR(6) NOT NULL,
+    id_registro INT,
+    id_empresa INT,
+    usuario_acao VARCHAR(100) NOT NULL DEFAULT current_user,
+    id_transacao BIGINT NOT NULL DEFAULT txid_current(),
+    dados_antes JSONB,
+    dados_depois JSONB
+) PARTITION BY RANGE (data_evento);
+
+-- Só cresce, em ordem de data_evento: BRIN ocupa poucas páginas e quase não custa na escrita
+CREATE INDEX IF NOT EXISTS idx_auditoria_data_evento ON tbl_auditoria USING BRIN (data_evento);
+
+-- Evento com data sem partição (relógio errado, partição não criada) não derruba a gravação
+CREATE TABLE IF NOT EXISTS tbl_auditoria_padrao PARTITION OF tbl_auditoria DEFAULT;
+
+-- Partição mensal; devolve FALSE se já existe ou se a padrão já tem eventos
+-- desse mês (nesse caso eles ficam na padrão: auditoria não é movida)
+CREATE OR REPLACE FUNCTION fn_garantir_particao_auditoria(p_mes DATE)
+RETURNS BOOLEAN AS $$
+DECLARE
+    v_inicio DATE := date_trunc('month', p_mes)::date;
+    v_fim DATE := (date_trunc('month', p_mes) + INTERVAL '1 month')::date;
+    v_nome TEXT := 'tbl_auditoria_' || to_char(p_mes, 'YYYYMM');
+BEGIN
+    IF to_regclass('public.' || v_nome) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    IF EXISTS (SELECT 1 FROM tbl_auditoria_padrao WHERE data_evento >= v_inicio AND data_evento < v_fim) THEN
+        RAISE NOTICE 'Eventos de % já estão em tbl_auditoria_padrao; partição não criada.', to_char(p_mes, 'MM/YYYY');
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format('CREATE TABLE public.%I PARTITION OF tbl_auditoria FOR VALUES FROM (%L) TO (%L)',
+                   v_nome, v_inicio, v_fim);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Mês atual e os próximos p_meses_a_frente (o programa chama ao iniciar)
+CREATE OR REPLACE FUNCTION fn_criar_particoes_auditoria(p_meses_a_frente INT DEFAULT 2)
+RETURNS INT AS $$
+DECLARE
+    v_criadas INT := 0;
+BEGIN
+    FOR i IN 0 .. p_meses_a_frente LOOP
+        IF fn_garantir_particao_auditoria((CURRENT_DATE + make_interval(months => i))::date) THEN
+            v_criadas := v_criadas + 1;
+        END IF;
+    END LOOP;
+    RETURN v_criadas;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Retenção: apaga os meses inteiros anteriores a p_meses atrás (DROP da partição,
+-- sem DELETE linha a linha). Devolve quantas partições saíram.
+CREATE OR REPLACE FUNCTION fn_expurgar_auditoria(p_meses INT)
+RETURNS INT AS $$
+DECLARE
+    v_limite TEXT := 'tbl_auditoria_' || to_char(CURRENT_DATE - make_interval(months => p_meses), 'YYYYMM');
+    v_particao RECORD;
+    v_removidas INT := 0;
+BEGIN
+    FOR v_particao IN
+        SELECT c.relname
+          FROM pg_inherits i
+          JOIN pg_class c ON c.oid = i.inhrelid
+         WHERE i.inhparent = 'tbl_auditoria'::regclass
+           AND c.relname ~ '^tbl_auditoria_[0-9]{6}$'
+           AND c.relname < v_limite
+    LOOP
+        EXECUTE format('DROP TABLE public.%I', v_particao.relname);
+        v_removidas := v_removidas + 1;
+    END LOOP;
+    RETURN v_removidas;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT fn_criar_particoes_auditoria(2);
+
+-- Append-only: UPDATE, DELETE e TRUNCATE são recusados (a retenção usa DROP de partição)
+CREATE OR REPLACE FUNCTION fn_auditoria_somente_insercao()
+RETURNS TRIGGER AS $$
+BEGIN
+    RAISE EXCEPTION 'tbl_auditoria só aceita inclusão (% recusado).', TG_OP;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_auditoria_somente_insercao ON tbl_auditoria;
+CREATE TRIGGER trg_auditoria_somente_insercao
+BEFORE UPDATE OR DELETE OR TRUNCATE ON tbl_auditoria
+FOR EACH STATEMENT EXECUTE FUNCTION fn_auditoria_somente_insercao();
+
+-- Grava as linhas afetadas pelo comando. Tabela lógica em TG_ARGV[0]
+-- (em tabela particionada TG_TABLE_NAME seria o nome da partição).
+-- "antigas"/"novas" são as tabelas de transição do trigger.
+CREATE OR REPLACE FUNCTION fn_auditar_mudancas()
+RETURNS TRIGGER AS $$
+DECLARE
+    v_tabela TEXT := COALESCE(TG_ARGV[0], TG_TABLE_NAME);
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO tbl_auditoria (tabela, operacao, id_registro, id_empresa, dados_depois)
+        SELECT v_tabela, TG_OP, (n.dados ->> 'id')::INT, (n.dados ->> 'id_empresa')::INT, n.dados
+          FROM (SELECT to_jsonb(x) - 'busca_descricao' AS dados FROM novas x) n;
+
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO tbl_auditoria (tabela, operacao, id_registro, id_empresa, dados_antes, dados_depois)
+        SELECT v_tabela, TG_OP, (n.dados ->> 'id')::INT, (n.dados ->> 'id_empresa')::INT, a.dados, n.dados
+          FROM (SELECT to_jsonb(x) - 'busca_descricao' AS dados FROM antigas x) a
+          JOIN (SELECT to_jsonb(x) - 'busca_descricao' AS dados FROM novas x) n
+            ON n.dados -> 'id' = a.dados -> 'id'
+         WHERE a.dados IS DISTINCT FROM n.dados;
+
+    ELSE
+        INSERT INTO tbl_auditoria (tabela, operacao, id_registro, id_empresa, dados_antes)
+        SELECT v_tabela, TG_OP, (a.dados ->> 'id')::INT, (a.dados ->> 'id_empresa')::INT, a.dados
+          FROM (SELECT to_jsonb(x) - 'busca_descricao' AS dados FROM antigas x) a;
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Tabela de transição só pode ter um evento por trigger: três por tabela
+CREATE OR REPLACE PROCEDURE sp_criar_triggers_auditoria(p_tabela TEXT)
+LANGUAGE plpgsql AS $$
+BEGIN
+    EXECUTE format('DROP TRIGGER IF EXISTS trg_auditoria_ins ON %I', p_tabela);
+    EXECUTE format('DROP TRIGGER IF EXISTS trg_auditoria_upd ON %I', p_tabela);
+    EXECUTE format('DROP TRIGGER IF EXISTS trg_auditoria_del ON %I', p_tabela);
+
+    EXECUTE format('CREATE TRIGGER trg_auditoria_ins AFTER INSERT ON %I '
+                   'REFERENCING NEW TABLE AS novas '
+                   'FOR EACH STATEMENT EXECUTE FUNCTION fn_auditar_mudancas(%L)', p_tabela, p_tabela);
+    EXECUTE format('CREATE TRIGGER trg_auditoria_upd AFTER UPDATE ON %I '
+                   'REFERENCING OLD TABLE AS antigas NEW TABLE AS novas '
+                   'FOR EACH STATEMENT EXECUTE FUNCTION fn_auditar_mudancas(%L)', p_tabela, p_tabela);
+    EXECUTE format('CREATE TRIGGER trg_auditoria_del AFTER DELETE ON %I '
+                   'REFERENCING OLD TABLE AS antigas '
+                   'FOR EACH STATEMENT EXECUTE FUNCTION fn_auditar_mudancas(%L)', p_tabela, p_tabela);
+END;
+$$;
+
+CALL sp_criar_triggers_auditoria('tbl_ordens_servico');
+CALL sp_criar_triggers_auditoria('tbl_clientes');
+CALL sp_criar_triggers_auditoria('tbl_tecnicos');
+CALL sp_criar_triggers_auditoria('tbl_enderecos');
+
+-- Exclusão de cliente agora já fica na tbl_auditoria (com o registro completo)
+DROP TRIGGER IF EXISTS trg_log_delete_cliente ON tbl_clientes;
@@ -0,0 +1,45 @@
+-- Devolve os privilégios que as migrações anteriores levaram junto.
+-- A V004 recriou tbl_ordens_servico e vw_detalhes_os (os GRANTs do script base
+-- ficaram na tabela apagada), e as tabelas novas da V003/V005 e as partições
+-- nunca receberam nenhum.
+--
+-- Os roles são os do script base (role_admin_app, role_tecnico_app); banco sem
+-- eles só pula a parte que depende deles.
+
+-- Os triggers de faturamento e auditoria gravam com os direitos do dono da função:
+-- um técnico que só pode dar UPDATE em tbl_ordens_servico não precisa (nem deve)
+-- poder escrever na auditoria. Com SECURITY DEFINER, current_user viraria o dono,
+-- então a auditoria passa a registrar o usuário da sessão.
+ALTER FUNCTION fn_atualiza_faturamento_mensal() SECURITY DEFINER SET search_path = public, pg_temp;
+ALTER FUNCTION fn_auditar_mudancas() SECURITY DEFINER SET search_path = public, pg_temp;
+ALTER TABLE tbl_auditoria ALTER COLUMN usuario_acao SET DEFAULT session_user;
+
+-- Partições arquivadas (sp_arquivar_particao_os) vão para este schema
+CREATE SCHEMA IF NOT EXISTS arquivo;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT FROM pg_catalog.pg_roles WHERE rolname = 'role_admin_app') THEN
+        -- o que já existe (inclusive partições e tabelas criadas pelas migrações)
+        GRANT ALL PRIVILEGES ON ALL TABLES IN SCHEMA public TO role_admin_app;
+        GRANT ALL PRIVILEGES ON ALL SEQUENCES IN SCHEMA public TO role_admin_app;
+        GRANT EXECUTE ON ALL PROCEDURES IN SCHEMA public TO role_admin_app;
+        GRANT EXECUTE ON ALL FUNCTIONS IN SCHEMA public TO role_admin_app;
+        GRANT USAGE ON SCHEMA arquivo TO role_admin_app;
+        GRANT SELECT ON ALL TABLES IN SCHEMA arquivo TO role_admin_app;
+
+        -- e o que ainda vai ser criado por este usuário (partições novas, próximas migrações)
+        ALTER DEFAULT PRIVILEGES IN SCHEMA public GRANT ALL PRIVILEGES ON TABLES TO role_admin_app;
+        ALTER DEFAULT PRIVILEGES IN SCHEMA public GRANT ALL PRIVILEGES ON SEQUENCES TO role_admin_app;
+        ALTER DEFAULT PRIVILEGES IN SCHEMA public GRANT EXECUTE ON ROUTINES TO role_admin_app;
+    END IF;
+
+    IF EXISTS (SELECT FROM pg_catalog.pg_roles WHERE rolname = 'role_tecnico_app') THEN
+        -- os mesmos do script base; partições são acessadas pela tabela mãe, que é o que conta
+        GRANT SELECT ON vw_detalhes_os, vw_detalhes_clientes, tbl_tecnicos TO role_tecnico_app;
+        GRANT UPDATE ON tbl_ordens_servico TO role_tecnico_app;
+        GRANT USAGE, SELECT ON ALL SEQUENCES IN SCHEMA public TO role_tecnico_app;
+        ALTER DEFAULT PRIVILEGES IN SCHEMA public GRANT USAGE, SELECT ON SEQUENCES TO role_tecnico_app;
+    END IF;
+END;
+$$;
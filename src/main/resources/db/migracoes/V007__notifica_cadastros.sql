@@ -0,0 +1,14 @@
+-- Avisos de mudança de clientes e técnicos (OuvinteMudancas / InvalidadorCaches).
+-- Esses triggers só existiam no script base; banco que chegou até aqui pelas
+-- migrações não tinha, e as telas/caches nunca ficavam sabendo dessas mudanças.
+-- Recriados com o nome da tabela como argumento, igual ao de O.S. da V004.
+
+DROP TRIGGER IF EXISTS trg_notifica_clientes ON tbl_clientes;
+CREATE TRIGGER trg_notifica_clientes
+AFTER INSERT OR UPDATE OR DELETE ON tbl_clientes
+FOR EACH ROW EXECUTE FUNCTION fn_notifica_mudanca('tbl_clientes');
+
+DROP TRIGGER IF EXISTS trg_notifica_tecnicos ON tbl_tecnicos;
+CREATE TRIGGER trg_notifica_tecnicos
+AFTER INSERT OR UPDATE OR DELETE ON tbl_tecnicos
+FOR EACH ROW EXECUTE FUNCTION fn_notifica_mudanca('tbl_tecnicos');
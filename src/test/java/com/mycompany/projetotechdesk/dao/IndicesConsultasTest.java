@@ -0,0 +1,139 @@
+package com.mycompany.projetotechdesk.dao;
+
+import com.mycompany.projetotechdesk.database.Conexao;
+import com.mycompany.projetotechdesk.database.Migracoes;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Confere por EXPLAIN que as consultas dos DAOs usam os indices criados pelas
+ * migracoes (V001, V002 e a recriacao na V004).
+ *
+ * Precisa de um PostgreSQL com o banco do database.properties (ou do
+ * -Dtechdesk.db.config); sem ele os testes sao pulados. As migracoes
+ * pendentes sao aplicadas antes, como na abertura do programa.
+ *
+ * Com poucas linhas o planner prefere ler a tabela inteira, entao cada
+ * EXPLAIN roda com enable_seqscan desligado: o teste verifica que o indice
+ * serve para a consulta, nao o plano escolhido com os dados do momento.
+ * Em tabela particionada o EXPLAIN mostra o indice de cada particao; o nome
+ * conferido e o do indice da tabela mae (pg_partition_root).
+ *
+ * @author carlo
+ */
+class IndicesConsultasTest {
+
+    private static final int ID_EMPRESA = 1;
+    private static final Pattern NOME_INDICE = Pattern.compile("\"Index Name\":\\s*\"([^\"]+)\"");
+
+    private static Connection con;
+
+    @BeforeAll
+    static void conectar() throws SQLException {
+        try {
+            con = Conexao.abrirConexaoDedicada();
+        } catch (SQLException e) {
+            assumeTrue(false, "sem banco acessível: " + e.getMessage());
+        }
+        Migracoes.aplicarPendentes();
+    }
+
+    @AfterAll
+    static void desconectar() throws SQLException {
+        if (con != null) con.close();
+        Conexao.encerrar();
+    }
+
+    @BeforeEach
+    void semLeituraSequencial() throws SQLException {
+        con.setAutoCommit(false);
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute("SET LOCAL enable_seqscan = off");
+        }
+    }
+
+    @AfterEach
+    void desfazer() throws SQLException {
+        con.rollback();
+        con.setAutoCommit(true);
+    }
+
+    @Test
+    void primeiraPaginaDeOSUsaIndiceEmpresaEntrada() throws SQLException {
+        Set<String> indices = indicesDoPlano(OrdemServicoDAO.SQL_PAGINA_OS, ID_EMPRESA, 50);
+        assertUsa("idx_os_empresa_entrada", indices);
+    }
+
+    @Test
+    void paginaSeguinteDeOSUsaIndiceEmpresaEntrada() throws SQLException {
+        Date cursor = Date.valueOf(LocalDate.now());
+        Set<String> indices = indicesDoPlano(OrdemServicoDAO.SQL_PAGINA_OS_DEPOIS, ID_EMPRESA, cursor, cursor, 1000, 50);
+        assertUsa("idx_os_empresa_entrada", indices);
+    }
+
+    @Test
+    void painelUsaIndiceEmpresaStatus() throws SQLException {
+        Set<String> indices = indicesDoPlano(OrdemServicoDAO.SQL_DASHBOARD, ID_EMPRESA);
+        assertUsa("idx_os_empresa_status", indices);
+    }
+
+    @Test
+    void osAtivasDoTecnicoUsaIndiceTecnicoStatus() throws SQLException {
+        Set<String> indices = indicesDoPlano(TecnicoDAO.SQL_OS_ATIVAS, 1, ID_EMPRESA);
+        assertUsa("idx_os_tecnico_status", indices);
+    }
+
+    @Test
+    void enderecosDoUsuarioUsaIndiceUsuario() throws SQLException {
+        Set<String> indices = indicesDoPlano(EnderecoDAO.SQL_LISTAR_POR_USUARIO, 1);
+        assertUsa("idx_enderecos_usuario", indices);
+    }
+
+    private static void assertUsa(String indice, Set<String> indices) {
+        assertTrue(indices.contains(indice), "o plano não usa " + indice + " (usa " + indices + ")");
+    }
+
+    //indices do plano, ja trocados pelo indice da tabela mae quando forem de uma particao
+    private static Set<String> indicesDoPlano(String sql, Object... parametros) throws SQLException {
+        StringBuilder plano = new StringBuilder();
+        try (PreparedStatement stmt = con.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+            for (int i = 0; i < parametros.length; i++) {
+                stmt.setObject(i + 1, parametros[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) plano.append(rs.getString(1));
+            }
+        }
+
+        Set<String> indices = new LinkedHashSet<>();
+        Matcher m = NOME_INDICE.matcher(plano);
+        String sqlRaiz = "SELECT coalesce(pg_partition_root(c.oid), c.oid)::regclass::text "
+                + "FROM pg_class c WHERE c.relname = ? AND c.relkind IN ('i', 'I')";
+        try (PreparedStatement stmt = con.prepareStatement(sqlRaiz)) {
+            while (m.find()) {
+                stmt.setString(1, m.group(1));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    indices.add(rs.next() ? rs.getString(1) : m.group(1));
+                }
+            }
+        }
+        return indices;
+    }
+}